@@ -0,0 +1,454 @@
+package com.cyitce.util.redis;
+
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * @version 1.0
+ * @see RedisUtil#batch()
+ * 管道批量操作，方法与RedisUtil一一对应，每个方法对应一条Redis命令，execute()时通过管道一次发送，
+ * 超过分块大小时分多次往返，避免一次性缓存过多命令与结果。非线程安全，每个批次只执行一次。
+ * 与RedisUtil一样，execute()后会通知所有实例失效热点键副本与近端缓存；通过add/addStatus添加的自定义命令不会触发失效。
+ * <pre>
+ * RedisBatch.Result result = redisUtil.batch()
+ *         .set("a", 1)
+ *         .hset("h", "f", "v")
+ *         .zAdd("z", "m", 1.0)
+ *         .get("a")
+ *         .execute();
+ * Integer a = result.get(3);
+ * </pre>
+ */
+public class RedisBatch {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final List<Consumer<RedisOperations<String, Object>>> commands = new ArrayList<>();
+    /**
+     * 返回状态回复的命令索引，管道不为这类命令返回结果，执行后在对应位置补null
+     */
+    private final BitSet statusCommands = new BitSet();
+    /**
+     * 修改或删除的键，execute()后通知失效本地副本
+     */
+    private final Set<String> writtenKeys = new LinkedHashSet<>();
+    private final Consumer<Collection<String>> invalidator;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    RedisBatch(RedisTemplate<String, Object> redisTemplate, Consumer<Collection<String>> invalidator) {
+        this.redisTemplate = redisTemplate;
+        this.invalidator = invalidator;
+    }
+
+    /**
+     * 设置分块大小，每块一次往返
+     *
+     * @param chunkSize 每块的命令数
+     * @return this
+     */
+    public RedisBatch chunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * 添加自定义命令，consumer中只能执行一条命令，否则结果索引将错位。
+     * 返回状态回复（如LTRIM、HMSET、RENAME）的命令需通过addStatus添加
+     *
+     * @param command 命令
+     * @return this
+     */
+    public RedisBatch add(Consumer<RedisOperations<String, Object>> command) {
+        commands.add(command);
+        return this;
+    }
+
+    /**
+     * 添加返回状态回复的自定义命令，管道不返回这类命令的结果，其结果为null
+     *
+     * @param command 命令
+     * @return this
+     */
+    public RedisBatch addStatus(Consumer<RedisOperations<String, Object>> command) {
+        statusCommands.set(commands.size());
+        return add(command);
+    }
+
+    /**
+     * 已添加的命令数
+     *
+     * @return int
+     */
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * 通过管道执行所有命令
+     *
+     * @return 按添加顺序排列的结果
+     */
+    public Result execute() {
+        try {
+            return new Result(executeChunks());
+        } finally {
+            // 部分分块失败时已执行的写入同样需要失效
+            if (!writtenKeys.isEmpty()) {
+                invalidator.accept(new ArrayList<>(writtenKeys));
+                writtenKeys.clear();
+            }
+        }
+    }
+
+    private List<Object> executeChunks() {
+        List<Object> results = new ArrayList<>(commands.size());
+        for (int from = 0; from < commands.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, commands.size());
+            List<Consumer<RedisOperations<String, Object>>> chunk = commands.subList(from, to);
+            List<Object> replies = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    for (Consumer<RedisOperations<String, Object>> command : chunk) {
+                        command.accept(ops);
+                    }
+                    return null;
+                }
+            });
+            int status = statusCommands.get(from, to).cardinality();
+            if (replies.size() != chunk.size() - status) {
+                throw new IllegalStateException("expected " + (chunk.size() - status) + " pipeline results but got " + replies.size()
+                        + ", status commands must be added with addStatus");
+            }
+            Iterator<Object> reply = replies.iterator();
+            for (int i = from; i < to; i++) {
+                results.add(statusCommands.get(i) ? null : reply.next());
+            }
+        }
+        commands.clear();
+        statusCommands.clear();
+        return results;
+    }
+
+    private RedisBatch write(String key, Consumer<RedisOperations<String, Object>> command) {
+        writtenKeys.add(key);
+        return add(command);
+    }
+
+    /////////////////////////////////////Key////////////////////////////////////
+
+    /**
+     * 设置过期时间，结果为Boolean
+     */
+    public RedisBatch expire(String key, long time, TimeUnit timeUnit) {
+        return add(ops -> ops.expire(key, time, timeUnit));
+    }
+
+    /**
+     * 删除键，结果为Long
+     */
+    public RedisBatch delete(String key) {
+        return write(key, ops -> ops.delete(key));
+    }
+
+    /**
+     * 删除多个键，结果为Long
+     */
+    public RedisBatch delete(Collection<String> keys) {
+        writtenKeys.addAll(keys);
+        return add(ops -> ops.delete(keys));
+    }
+
+    /**
+     * 是否存在，结果为Boolean
+     */
+    public RedisBatch exists(String key) {
+        return add(ops -> ops.hasKey(key));
+    }
+
+    /**
+     * 剩余过期时间，结果为Long，单位s
+     */
+    public RedisBatch getExpire(String key) {
+        return add(ops -> ops.getExpire(key));
+    }
+
+    /////////////////////////////////////String////////////////////////////////////
+
+    /**
+     * 获取Value，结果为值
+     */
+    public RedisBatch get(String key) {
+        return add(ops -> ops.opsForValue().get(key));
+    }
+
+    /**
+     * 批量获取Value，结果为List
+     */
+    public RedisBatch mget(Collection<String> keys) {
+        return add(ops -> ops.opsForValue().multiGet(keys));
+    }
+
+    /**
+     * 设置kv
+     */
+    public RedisBatch set(String key, Object value) {
+        return write(key, ops -> ops.opsForValue().set(key, value));
+    }
+
+    /**
+     * 设置kv及过期时间
+     */
+    public RedisBatch set(String key, Object value, long time, TimeUnit timeUnit) {
+        return write(key, ops -> ops.opsForValue().set(key, value, time, timeUnit));
+    }
+
+    /**
+     * 不存在时设置kv，结果为Boolean
+     */
+    public RedisBatch setnx(String key, Object value) {
+        return write(key, ops -> ops.opsForValue().setIfAbsent(key, value));
+    }
+
+    /**
+     * 不存在时设置kv及过期时间，结果为Boolean
+     */
+    public RedisBatch setnx(String key, Object value, long timeout, TimeUnit unit) {
+        return write(key, ops -> ops.opsForValue().setIfAbsent(key, value, timeout, unit));
+    }
+
+    /**
+     * 自增1，结果为Long
+     */
+    public RedisBatch incr(String key) {
+        return write(key, ops -> ops.opsForValue().increment(key));
+    }
+
+    /**
+     * 自增delta，结果为Long
+     */
+    public RedisBatch incrBy(String key, long delta) {
+        return write(key, ops -> ops.opsForValue().increment(key, delta));
+    }
+
+    /**
+     * 自减1，结果为Long
+     */
+    public RedisBatch decr(String key) {
+        return write(key, ops -> ops.opsForValue().decrement(key));
+    }
+
+    /**
+     * 自减delta，结果为Long
+     */
+    public RedisBatch decrBy(String key, long delta) {
+        return write(key, ops -> ops.opsForValue().decrement(key, delta));
+    }
+
+    /////////////////////////////////////List////////////////////////////////////
+
+    /**
+     * 左侧插入，结果为Long
+     */
+    public RedisBatch lPush(String key, Object value) {
+        return add(ops -> ops.opsForList().leftPush(key, value));
+    }
+
+    /**
+     * 左侧批量插入，结果为Long
+     */
+    public RedisBatch lPushAll(String key, Object... value) {
+        return add(ops -> ops.opsForList().leftPushAll(key, value));
+    }
+
+    /**
+     * 右侧插入，结果为Long
+     */
+    public RedisBatch rPush(String key, Object value) {
+        return add(ops -> ops.opsForList().rightPush(key, value));
+    }
+
+    /**
+     * 右侧批量插入，结果为Long
+     */
+    public RedisBatch rPushAll(String key, Object... value) {
+        return add(ops -> ops.opsForList().rightPushAll(key, value));
+    }
+
+    /**
+     * 截取列表，结果为null
+     */
+    public RedisBatch lTrim(String key, long start, long end) {
+        return addStatus(ops -> ops.opsForList().trim(key, start, end));
+    }
+
+    /**
+     * 获取列表范围，结果为List
+     */
+    public RedisBatch lRange(String key, long start, long end) {
+        return add(ops -> ops.opsForList().range(key, start, end));
+    }
+
+    /////////////////////////////////////Set////////////////////////////////////
+
+    /**
+     * 添加元素，结果为Long
+     */
+    public RedisBatch sAdd(String key, Object... value) {
+        return add(ops -> ops.opsForSet().add(key, value));
+    }
+
+    /**
+     * 删除元素，结果为Long
+     */
+    public RedisBatch sRem(String key, Object... value) {
+        return add(ops -> ops.opsForSet().remove(key, value));
+    }
+
+    /**
+     * 是否为成员，结果为Boolean
+     */
+    public RedisBatch sIsMember(String key, Object value) {
+        return add(ops -> ops.opsForSet().isMember(key, value));
+    }
+
+    /////////////////////////////////////Hash////////////////////////////////////
+
+    /**
+     * 设置hash字段
+     */
+    public RedisBatch hset(String key, String hashKey, Object value) {
+        return add(ops -> ops.opsForHash().put(key, hashKey, value));
+    }
+
+    /**
+     * 批量设置hash字段，结果为null
+     */
+    public RedisBatch hset(String key, Map<String, Object> map) {
+        return addStatus(ops -> ops.opsForHash().putAll(key, map));
+    }
+
+    /**
+     * 获取hash字段，结果为值
+     */
+    public RedisBatch hget(String key, String hashKey) {
+        return add(ops -> ops.opsForHash().get(key, hashKey));
+    }
+
+    /**
+     * 删除hash字段，结果为Long
+     */
+    public RedisBatch hdel(String key, Object... hashKeys) {
+        return add(ops -> ops.opsForHash().delete(key, hashKeys));
+    }
+
+    /**
+     * hash字段自增，结果为Long
+     */
+    public RedisBatch hIncrBy(String key, Object hashKey, long delta) {
+        return add(ops -> ops.opsForHash().increment(key, hashKey, delta));
+    }
+
+    /**
+     * 不存在时设置hash字段，结果为Boolean
+     */
+    public RedisBatch hSetNx(String key, Object hashKey, Object value) {
+        return add(ops -> ops.opsForHash().putIfAbsent(key, hashKey, value));
+    }
+
+    /////////////////////////////////////ZSet////////////////////////////////////
+
+    /**
+     * 添加元素，结果为Boolean
+     */
+    public RedisBatch zAdd(String key, Object value, double score) {
+        return add(ops -> ops.opsForZSet().add(key, value, score));
+    }
+
+    /**
+     * 删除元素，结果为Long
+     */
+    public RedisBatch zRem(String key, Object... values) {
+        return add(ops -> ops.opsForZSet().remove(key, values));
+    }
+
+    /**
+     * 按分数删除元素，结果为Long
+     */
+    public RedisBatch zRemRangeByScore(String key, double min, double max) {
+        return add(ops -> ops.opsForZSet().removeRangeByScore(key, min, max));
+    }
+
+    /**
+     * 元素个数，结果为Long
+     */
+    public RedisBatch zCard(String key) {
+        return add(ops -> ops.opsForZSet().zCard(key));
+    }
+
+    /////////////////////////////////////HyperLogLog////////////////////////////////////
+
+    /**
+     * 添加元素，结果为Long
+     */
+    public RedisBatch pfAdd(String key, Object... values) {
+        return add(ops -> ops.opsForHyperLogLog().add(key, values));
+    }
+
+    /////////////////////////////////////Bitmap////////////////////////////////////
+
+    /**
+     * 获取位，结果为Boolean
+     */
+    public RedisBatch getBit(String key, long offset) {
+        return add(ops -> ops.opsForValue().getBit(key, offset));
+    }
+
+    /**
+     * 设置位，结果为原来的值Boolean
+     */
+    public RedisBatch setBit(String key, long offset, boolean value) {
+        return write(key, ops -> ops.opsForValue().setBit(key, offset, value));
+    }
+
+    /**
+     * 批量执行的结果，与命令添加顺序一一对应
+     */
+    public static class Result {
+
+        private final List<Object> results;
+
+        Result(List<Object> results) {
+            this.results = results;
+        }
+
+        /**
+         * 获取第index条命令的结果
+         *
+         * @param index 命令索引，从0开始
+         * @param <T>   结果类型
+         * @return 结果
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T get(int index) {
+            return (T) results.get(index);
+        }
+
+        public int size() {
+            return results.size();
+        }
+
+        public List<Object> asList() {
+            return Collections.unmodifiableList(results);
+        }
+    }
+}
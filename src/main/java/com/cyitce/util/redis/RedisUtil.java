@@ -1,5 +1,20 @@
 package com.cyitce.util.redis;
 
+import com.cyitce.util.redis.bloom.RedisBloomFilter;
+import com.cyitce.util.redis.cache.NearCache;
+import com.cyitce.util.redis.configs.RedisUtilProperties;
+import com.cyitce.util.redis.hotkey.HotKeyDetector;
+import com.cyitce.util.redis.lock.LocalLockTable;
+import com.cyitce.util.redis.lock.LockScripts;
+import com.cyitce.util.redis.lock.LockWatchdog;
+import com.cyitce.util.redis.lock.NotifyingWait;
+import com.cyitce.util.redis.lock.RedisCountDownLatch;
+import com.cyitce.util.redis.lock.RedisReadWriteLock;
+import com.cyitce.util.redis.lock.RedisSemaphore;
+import com.cyitce.util.redis.notify.RedisNotifier;
+import com.cyitce.util.redis.scan.PatternDeleter;
+import com.cyitce.util.redis.scan.ScanStreams;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.geo.Distance;
 import org.springframework.data.geo.GeoResults;
@@ -10,7 +25,11 @@ import org.springframework.data.redis.core.*;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 import java.util.logging.Logger;
 
 /**
@@ -21,19 +40,76 @@ import java.util.logging.Logger;
  * RedisTemplate已配置,Redis访问工具类，Key默认为String类型，Value默认为Object，Value已开启JSON转换。
  */
 @Component
-public class RedisUtil {
+public class RedisUtil implements DisposableBean {
 
 
     public static final String LOCK = ":lock";
+    public static final String LOCK_QUEUE = ":lock:queue";
+    public static final String LOCK_TIMEOUT = ":lock:timeout";
+    /**
+     * 未启用通知或公平锁未轮到时的重试间隔ms
+     */
+    public static final long LOCK_RETRY_INTERVAL = 50;
+    /**
+     * 当前JVM实例的唯一标识，用于区分跨实例的消息来源
+     */
+    public static final String INSTANCE_ID = UUID.randomUUID().toString();
     private static final Logger logger = Logger.getLogger(RedisUtil.class.getName());
     private final RedisTemplate<String, Object> redisTemplate;
+    private final LockWatchdog lockWatchdog;
+    private final LocalLockTable localLocks;
+    private RedisNotifier notifier;
+    private HotKeyDetector hotKeyDetector;
+    private NearCache nearCache;
+    private volatile Boolean cluster;
 
     @Autowired
+    public RedisUtil(RedisTemplate<String, Object> redisTemplate, RedisUtilProperties properties) {
+        this(redisTemplate, properties.getLock().getWatchdogLease());
+    }
+
     public RedisUtil(RedisTemplate<String, Object> redisTemplate) {
+        this(redisTemplate, LockWatchdog.DEFAULT_LEASE);
+    }
+
+    private RedisUtil(RedisTemplate<String, Object> redisTemplate, long watchdogLease) {
         this.redisTemplate = redisTemplate;
+        this.lockWatchdog = new LockWatchdog(redisTemplate, watchdogLease);
+        this.localLocks = new LocalLockTable();
         logger.info("redisTemplate init.");
     }
 
+    /**
+     * 注入通知工具，用于阻塞加锁时等待锁释放通知；未注入时阻塞加锁退化为定时重试
+     *
+     * @param notifier RedisNotifier
+     */
+    @Autowired(required = false)
+    public void setNotifier(RedisNotifier notifier) {
+        this.notifier = notifier;
+        notifier.prepareWaiters(LockScripts.RELEASE_TOPIC);
+    }
+
+    /**
+     * 注入热点键探测，get时统计访问频率并优先读取已提升到本地的热点键，set、delete时失效本地副本
+     *
+     * @param hotKeyDetector HotKeyDetector
+     */
+    @Autowired(required = false)
+    public void setHotKeyDetector(HotKeyDetector hotKeyDetector) {
+        this.hotKeyDetector = hotKeyDetector;
+    }
+
+    /**
+     * 注入近端缓存，set、delete时通知所有实例失效ResultCache的本地缓存
+     *
+     * @param nearCache NearCache
+     */
+    @Autowired(required = false)
+    public void setNearCache(NearCache nearCache) {
+        this.nearCache = nearCache;
+    }
+
     /**
      * 获取RedisTemplate
      *
@@ -131,6 +207,15 @@ public class RedisUtil {
         redisTemplate.discard();
     }
 
+    /**
+     * 开启管道批量操作，所有命令在execute()时一次发送
+     *
+     * @return RedisBatch
+     */
+    public RedisBatch batch() {
+        return new RedisBatch(redisTemplate, this::invalidateLocalAll);
+    }
+
     ////////////////////////////////通常////////////////////////////////////////
 
     /**
@@ -147,7 +232,16 @@ public class RedisUtil {
      * @return 值
      */
     public Object get(String key) {
-        return redisTemplate.opsForValue().get(key);
+        HotKeyDetector detector = hotKeyDetector;
+        if (detector == null) {
+            return redisTemplate.opsForValue().get(key);
+        }
+        Object value = detector.getLocal(key);
+        if (value == null) {
+            value = redisTemplate.opsForValue().get(key);
+            detector.record(key, value);
+        }
+        return value;
     }
 
     /**
@@ -170,6 +264,7 @@ public class RedisUtil {
      */
     public void set(String key, Object value) {
         redisTemplate.opsForValue().set(key, value);
+        invalidateLocal(key);
     }
 
     /**
@@ -182,6 +277,7 @@ public class RedisUtil {
      */
     public void set(String key, Object value, long time, TimeUnit timeUnit) {
         redisTemplate.opsForValue().set(key, value, time, timeUnit);
+        invalidateLocal(key);
     }
 
     /**
@@ -191,7 +287,9 @@ public class RedisUtil {
      * @return 是否成功
      */
     public Boolean delete(String key) {
-        return redisTemplate.delete(key);
+        Boolean deleted = redisTemplate.delete(key);
+        invalidateLocal(key);
+        return deleted;
     }
 
     /**
@@ -201,7 +299,7 @@ public class RedisUtil {
      * @return Long
      */
     public Long delete(String... keys) {
-        return redisTemplate.delete(Arrays.asList(keys));
+        return delete(Arrays.asList(keys));
     }
 
     /**
@@ -211,7 +309,34 @@ public class RedisUtil {
      * @return Long
      */
     public Long delete(Collection<String> keys) {
-        return redisTemplate.delete(keys);
+        Long deleted = redisTemplate.delete(keys);
+        invalidateLocalAll(keys);
+        return deleted;
+    }
+
+    /**
+     * 键被修改或删除后失效所有实例中的热点键副本与近端缓存
+     */
+    private void invalidateLocal(String key) {
+        HotKeyDetector detector = hotKeyDetector;
+        if (detector != null) {
+            detector.invalidate(key);
+        }
+        NearCache cache = nearCache;
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    private void invalidateLocalAll(Collection<String> keys) {
+        HotKeyDetector detector = hotKeyDetector;
+        if (detector != null) {
+            detector.invalidateAll(keys);
+        }
+        NearCache cache = nearCache;
+        if (cache != null) {
+            cache.invalidateAll(keys);
+        }
     }
 
     /**
@@ -223,6 +348,7 @@ public class RedisUtil {
      */
     public void setRange(String key, int offset, String value) {
         redisTemplate.opsForValue().set(key, value, offset);
+        invalidateLocal(key);
     }
 
     /**
@@ -243,7 +369,9 @@ public class RedisUtil {
      * @return 追加后字符长度
      */
     public Integer append(String key, String value) {
-        return redisTemplate.opsForValue().append(key, value);
+        Integer length = redisTemplate.opsForValue().append(key, value);
+        invalidateLocal(key);
+        return length;
     }
 
     /**
@@ -263,7 +391,9 @@ public class RedisUtil {
      * @return 自增后的值
      */
     public Long incr(String key) {
-        return redisTemplate.opsForValue().increment(key);
+        Long value = redisTemplate.opsForValue().increment(key);
+        invalidateLocal(key);
+        return value;
     }
 
     /**
@@ -273,7 +403,9 @@ public class RedisUtil {
      * @return 自减后的值
      */
     public Long decr(String key) {
-        return redisTemplate.opsForValue().decrement(key);
+        Long value = redisTemplate.opsForValue().decrement(key);
+        invalidateLocal(key);
+        return value;
     }
 
     /**
@@ -284,7 +416,9 @@ public class RedisUtil {
      * @return 自增后的值
      */
     public Long incrBy(String key, long delta) {
-        return redisTemplate.opsForValue().increment(key, delta);
+        Long value = redisTemplate.opsForValue().increment(key, delta);
+        invalidateLocal(key);
+        return value;
     }
 
     /**
@@ -295,7 +429,9 @@ public class RedisUtil {
      * @return 自减后的值
      */
     public Long decrBy(String key, long delta) {
-        return redisTemplate.opsForValue().decrement(key, delta);
+        Long value = redisTemplate.opsForValue().decrement(key, delta);
+        invalidateLocal(key);
+        return value;
     }
 
     /**
@@ -306,7 +442,11 @@ public class RedisUtil {
      * @return 是否成功
      */
     public Boolean setnx(String key, Object value) {
-        return redisTemplate.opsForValue().setIfAbsent(key, value);
+        Boolean set = redisTemplate.opsForValue().setIfAbsent(key, value);
+        if (Boolean.TRUE.equals(set)) {
+            invalidateLocal(key);
+        }
+        return set;
     }
 
     /**
@@ -319,7 +459,11 @@ public class RedisUtil {
      * @return 是否成功
      */
     public Boolean setnx(String key, Object value, long timeout, TimeUnit unit) {
-        return redisTemplate.opsForValue().setIfAbsent(key, value, timeout, unit);
+        Boolean set = redisTemplate.opsForValue().setIfAbsent(key, value, timeout, unit);
+        if (Boolean.TRUE.equals(set)) {
+            invalidateLocal(key);
+        }
+        return set;
     }
 
     /**
@@ -363,60 +507,193 @@ public class RedisUtil {
         return redisTemplate.opsForValue().multiGet(key);
     }
 
+    /**
+     * 批量设置kv
+     *
+     * @param map kv集合
+     */
+    public void mset(Map<String, Object> map) {
+        redisTemplate.opsForValue().multiSet(map);
+        invalidateLocalAll(map.keySet());
+    }
+
+    /**
+     * 批量设置kv，通过管道一次往返写入并设置过期时间
+     *
+     * @param map      kv集合
+     * @param time     过期时间
+     * @param timeUnit 过期时间单位
+     */
+    public void mset(Map<String, Object> map, long time, TimeUnit timeUnit) {
+        mset(map, time, 0, timeUnit);
+    }
+
+    /**
+     * 批量设置kv，通过管道一次往返写入，每个键的过期时间单独追加随机时间，避免同时写入的键同时过期
+     *
+     * @param map      kv集合
+     * @param time     过期时间
+     * @param jitter   随机追加时间的上限（不含），小于等于0时不追加
+     * @param timeUnit 过期时间单位
+     */
+    public void mset(Map<String, Object> map, long time, long jitter, TimeUnit timeUnit) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                ValueOperations<String, Object> ops = (ValueOperations<String, Object>) operations.opsForValue();
+                map.forEach((key, value) -> ops.set(key, value,
+                        jitter > 0 ? time + ThreadLocalRandom.current().nextLong(jitter) : time, timeUnit));
+                return null;
+            }
+        });
+        invalidateLocalAll(map.keySet());
+    }
+
+    /**
+     * 异步删除所有匹配的键，每批1000个，不限速
+     *
+     * @param pattern 匹配字符
+     * @return 删除的键数量
+     */
+    public CompletableFuture<Long> deleteByPattern(String pattern) {
+        return deleteByPattern(pattern, 1000, 0, null);
+    }
+
+    /**
+     * 异步删除所有匹配的键。通过SCAN逐页获取，每批以一次UNLINK删除（Redis在后台释放内存），不阻塞调用线程与Redis
+     *
+     * @param pattern          匹配字符
+     * @param batchSize        每批删除的键数量，同时作为SCAN COUNT
+     * @param maxKeysPerSecond 每秒最多删除的键数量，小于等于0时不限制
+     * @param progress         每批删除后回调已删除的总数，可为null
+     * @return 删除的键数量，取消后在当前批次完成时停止
+     */
+    public CompletableFuture<Long> deleteByPattern(String pattern, int batchSize, long maxKeysPerSecond, LongConsumer progress) {
+        // 删除开始前与完成后各失效一次，避免删除过程中被重新缓存的副本残留
+        invalidateLocalPattern(pattern);
+        CompletableFuture<Long> deleted = PatternDeleter.delete(redisTemplate, scan(pattern, batchSize), batchSize, maxKeysPerSecond, progress);
+        deleted.whenComplete((count, error) -> invalidateLocalPattern(pattern));
+        return deleted;
+    }
+
+    /**
+     * 按模式删除键后失效所有实例中匹配的热点键副本与近端缓存
+     */
+    private void invalidateLocalPattern(String pattern) {
+        HotKeyDetector detector = hotKeyDetector;
+        if (detector != null) {
+            detector.invalidatePattern(pattern);
+        }
+        NearCache cache = nearCache;
+        if (cache != null) {
+            cache.invalidatePattern(pattern);
+        }
+    }
+
     /**
      * 获取key
      *
      * @param pattern 匹配字符
      * @return 键集合
+     * @deprecated KEYS会阻塞Redis并一次性返回所有结果，请使用 {@link #scan(String, int)}
      */
+    @Deprecated
     public Set<String> keys(String pattern) {
         return redisTemplate.keys(pattern);
     }
 
+    /**
+     * 基于SCAN游标惰性获取key，按页拉取，内存占用与总数无关；集群模式下并行扫描所有主节点并合并结果。
+     * 返回的流持有连接，使用完毕后必须关闭：
+     * <pre>
+     * try (Stream&lt;String&gt; keys = redisUtil.scan("user:*", 1000)) {
+     *     keys.forEach(...);
+     * }
+     * </pre>
+     *
+     * @param pattern   匹配字符
+     * @param batchSize 每页数量（SCAN COUNT）
+     * @return 键流
+     */
+    public Stream<String> scan(String pattern, int batchSize) {
+        Boolean isCluster = cluster;
+        if (isCluster == null) {
+            cluster = isCluster = ScanStreams.isCluster(redisTemplate);
+        }
+        return isCluster ? ScanStreams.clusterKeys(redisTemplate, pattern, batchSize) : ScanStreams.keys(redisTemplate, pattern, batchSize);
+    }
+
     /////////////////////////////////////Lock////////////////////////////////////
 
     /**
-     * 非阻塞加锁，默认最大持有锁时间3分钟
+     * 非阻塞加锁，以看门狗租期加锁并自动续期，直到释放锁或持有线程结束
      *
      * @param lockId 锁ID
      * @return 是否成功
      */
     public Boolean lock(String lockId) {
-        return lock(lockId, 3, TimeUnit.MINUTES);
+        return lock(lockId, 0, TimeUnit.MILLISECONDS);
     }
 
     /**
      * 非阻塞加锁
      *
      * @param lockId      锁ID
-     * @param maxLockTime 最大持有锁时间
+     * @param maxLockTime 最大持有锁时间，小于等于0时以看门狗租期加锁并自动续期
      * @param timeUnit    时间单位
      * @return 是否成功
      */
     public Boolean lock(String lockId, long maxLockTime, TimeUnit timeUnit) {
-        return redisTemplate.execute((RedisCallback<Boolean>) connection -> {
-            Boolean b = connection.hashCommands().hSetNX((lockId + LOCK).getBytes(), "threadID".getBytes(), String.valueOf(Thread.currentThread().getId()).getBytes());
-            if (b != null && b) {
-                connection.expire((lockId + LOCK).getBytes(), timeUnit.toSeconds(maxLockTime));
-                connection.hashCommands().hSet((lockId + LOCK).getBytes(), "enterCount".getBytes(), "1".getBytes());
-            } else if (String.valueOf(Thread.currentThread().getId()).equals(new String(connection.hashCommands().hGet((lockId + LOCK).getBytes(), "threadID".getBytes())))) {
-                connection.expire((lockId + LOCK).getBytes(), timeUnit.toSeconds(maxLockTime));
-                connection.hashCommands().hIncrBy((lockId + LOCK).getBytes(), "enterCount".getBytes(), 1);
-                b = true;
+        if (localLocks.reenter(lockId)) {
+            return true;
+        }
+        // 本实例内其他线程正持有该锁时不访问Redis
+        if (!localLocks.tryLock(lockId)) {
+            return false;
+        }
+        boolean acquired = false;
+        try {
+            acquired = maxLockTime > 0 ? tryLock(lockId, timeUnit.toMillis(maxLockTime)) == null : tryLockWatched(lockId);
+        } finally {
+            if (acquired) {
+                localLocks.acquired(lockId);
+            } else {
+                localLocks.unlock(lockId);
             }
-            return b;
-        });
+        }
+        return acquired;
+    }
+
+    private boolean tryLockWatched(String lockId) {
+        if (tryLock(lockId, lockWatchdog.getLease()) == null) {
+            lockWatchdog.watch(lockId + LOCK, LockScripts.owner(), Thread.currentThread());
+            return true;
+        }
+        return false;
     }
 
     /**
-     * 阻塞加锁，默认最大持有锁时间3分钟
+     * 尝试加锁（可重入），一次往返
+     *
+     * @param lockId      锁ID
+     * @param maxLockTime 最大持有锁时间ms
+     * @return 成功返回null，失败返回锁剩余过期时间ms
+     */
+    private Long tryLock(String lockId, long maxLockTime) {
+        return redisTemplate.execute(LockScripts.LOCK, LockScripts.ARGS_SERIALIZER, null,
+                Collections.singletonList(lockId + LOCK), String.valueOf(maxLockTime), LockScripts.owner());
+    }
+
+    /**
+     * 阻塞加锁，以看门狗租期加锁并自动续期
      *
      * @param lockId      锁ID
      * @param waitMaxTime 等待超时时间
      * @return 是否成功
      */
     public Boolean lockBlock(String lockId, long waitMaxTime, TimeUnit timeUnit) {
-        return lockBlock(lockId, waitMaxTime, 3, timeUnit);
+        return lockBlock(lockId, waitMaxTime, 0, timeUnit);
     }
 
     /**
@@ -424,29 +701,95 @@ public class RedisUtil {
      *
      * @param lockId      锁ID
      * @param waitMaxTime 等待超时时间
-     * @param maxLockTime 最大持有锁时间
+     * @param maxLockTime 最大持有锁时间，小于等于0时以看门狗租期加锁并自动续期
      * @param timeUnit    时间单位
      * @return 是否成功
      */
     public Boolean lockBlock(String lockId, long waitMaxTime, long maxLockTime, TimeUnit timeUnit) {
-        long startTime = System.currentTimeMillis();
-        long maxTimeMillis = timeUnit.toMillis(waitMaxTime);
-        while (true) {
-            if (lock(lockId, maxLockTime, TimeUnit.MINUTES)) {
-                return true;
+        return lockBlock(lockId, waitMaxTime, maxLockTime, timeUnit, false);
+    }
+
+    /**
+     * 阻塞加锁。等待期间不轮询Redis：锁释放时通过通知唤醒，未收到通知时最多等待到锁的剩余过期时间后重试
+     *
+     * @param lockId      锁ID
+     * @param waitMaxTime 等待超时时间
+     * @param maxLockTime 最大持有锁时间，小于等于0时以看门狗租期加锁并自动续期
+     * @param timeUnit    时间单位
+     * @param fair        是否公平锁，公平锁按等待者到达顺序获得锁
+     * @return 是否成功
+     */
+    public Boolean lockBlock(String lockId, long waitMaxTime, long maxLockTime, TimeUnit timeUnit, boolean fair) {
+        if (localLocks.reenter(lockId)) {
+            return true;
+        }
+        long deadline = System.currentTimeMillis() + timeUnit.toMillis(waitMaxTime);
+        // 先在本实例内排队，只有本地胜出的线程才访问Redis
+        try {
+            if (!localLocks.tryLock(lockId, timeUnit.toMillis(waitMaxTime), TimeUnit.MILLISECONDS)) {
+                return false;
             }
-            try {
-                Thread.sleep(5);
-            } catch (InterruptedException ignored) {
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        boolean acquired = false;
+        try {
+            acquired = lockBlockRemote(lockId, deadline, maxLockTime > 0 ? timeUnit.toMillis(maxLockTime) : 0, fair);
+        } finally {
+            if (acquired) {
+                localLocks.acquired(lockId);
+            } else {
+                localLocks.unlock(lockId);
             }
-            if (System.currentTimeMillis() - startTime >= maxTimeMillis) {
-                return false;
+        }
+        return acquired;
+    }
+
+    /**
+     * 阻塞获取Redis锁
+     *
+     * @param deadline    等待截止时间ms
+     * @param maxLockTime 最大持有锁时间ms，小于等于0时由看门狗续期
+     */
+    private boolean lockBlockRemote(String lockId, long deadline, long maxLockTime, boolean fair) {
+        long lease = maxLockTime > 0 ? maxLockTime : lockWatchdog.getLease();
+        boolean acquired = false;
+        try {
+            acquired = NotifyingWait.await(notifier, lockId, deadline,
+                    () -> fair ? tryFairLock(lockId, lease, deadline) : tryLock(lockId, lease));
+            if (acquired && maxLockTime <= 0) {
+                lockWatchdog.watch(lockId + LOCK, LockScripts.owner(), Thread.currentThread());
+            }
+            return acquired;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            if (fair && !acquired) {
+                quitFairLock(lockId);
             }
         }
     }
 
+    private Long tryFairLock(String lockId, long maxLockTime, long deadline) {
+        return redisTemplate.execute(LockScripts.FAIR_LOCK, LockScripts.ARGS_SERIALIZER, null,
+                Arrays.asList(lockId + LOCK, lockId + LOCK_QUEUE, lockId + LOCK_TIMEOUT),
+                String.valueOf(maxLockTime), LockScripts.owner(), String.valueOf(System.currentTimeMillis()),
+                String.valueOf(deadline), String.valueOf(LOCK_RETRY_INTERVAL));
+    }
+
+    private void quitFairLock(String lockId) {
+        try {
+            redisTemplate.execute(LockScripts.FAIR_QUIT, LockScripts.ARGS_SERIALIZER, null,
+                    Arrays.asList(lockId + LOCK_QUEUE, lockId + LOCK_TIMEOUT), LockScripts.owner());
+        } catch (RuntimeException e) {
+            logger.warning("quit lock queue " + lockId + " failed: " + e.getMessage());
+        }
+    }
+
     /**
-     * 设置锁最大持有时间
+     * 设置锁最大持有时间，该锁将不再由看门狗续期
      *
      * @param lockId      锁ID
      * @param maxLockTime 最大持有锁时间
@@ -454,43 +797,197 @@ public class RedisUtil {
      * @return 是否成功
      */
     public Boolean resetMaxLockTime(String lockId, long maxLockTime, TimeUnit timeUnit) {
-        /*if (String.valueOf(Thread.currentThread().getId()).equals(String.valueOf(redisTemplate.opsForHash().get(lockId + LOCK, "threadID")))) {
-            return redisTemplate.expire(lockId + LOCK, maxLockTime, timeUnit);
+        Long result = redisTemplate.execute(LockScripts.RENEW, LockScripts.ARGS_SERIALIZER, null,
+                Collections.singletonList(lockId + LOCK), String.valueOf(timeUnit.toMillis(maxLockTime)), LockScripts.owner());
+        if (result != null && result == 1) {
+            lockWatchdog.unwatch(lockId + LOCK, LockScripts.owner());
+            return true;
         }
-        return false;*/
-        return redisTemplate.execute((RedisCallback<Boolean>) connection -> {
-            if (String.valueOf(Thread.currentThread().getId()).equals(new String(connection.hashCommands().hGet((lockId + LOCK).getBytes(), "threadID".getBytes())))) {
-                return connection.expire((lockId + LOCK).getBytes(), timeUnit.toSeconds(maxLockTime));
-            }
-            return false;
-        });
+        return false;
     }
 
 
     /**
-     * 释放锁
+     * 释放锁，重入多次时需释放相同次数
      *
      * @param lockId 锁ID
      * @return 是否成功
      */
     public Boolean unlock(String lockId) {
-        /*if (String.valueOf(Thread.currentThread().getId()).equals(String.valueOf(redisTemplate.opsForHash().get(lockId + LOCK, "threadID")))) {
-            if (redisTemplate.opsForHash().increment(lockId + LOCK, "enterCount", -1) <= 0) {
-                return redisTemplate.delete(lockId + LOCK);
+        int remaining = localLocks.exit(lockId);
+        if (remaining > 0) {
+            return true;
+        }
+        try {
+            return unlockRemote(lockId);
+        } finally {
+            if (remaining == 0) {
+                localLocks.unlock(lockId);
             }
+        }
+    }
+
+    private Boolean unlockRemote(String lockId) {
+        String owner = LockScripts.owner();
+        Long result = redisTemplate.execute(LockScripts.UNLOCK, LockScripts.ARGS_SERIALIZER, null,
+                Collections.singletonList(lockId + LOCK), owner, LockScripts.RELEASE_CHANNEL, LockScripts.releaseMessage(lockId));
+        if (result == null || result == 1) {
+            lockWatchdog.unwatch(lockId + LOCK, owner);
+        }
+        return result != null;
+    }
+
+    /**
+     * 一次往返同时获取多个锁，全部成功或全部失败。锁ID按字典序排序后加锁，避免不同调用方交叉等待；
+     * 与lock(lockId)共用同一把锁与本地重入计数（可互相重入、互相释放）。集群模式下所有锁键需位于同一slot，可使用{hashtag}
+     *
+     * @param lockIds     锁ID集合
+     * @param maxLockTime 最大持有锁时间，小于等于0时以看门狗租期加锁并自动续期
+     * @param timeUnit    时间单位
+     * @return 是否成功
+     */
+    public Boolean lockAll(Collection<String> lockIds, long maxLockTime, TimeUnit timeUnit) {
+        if (lockIds.isEmpty()) {
             return true;
         }
-        return false;*/
-        return redisTemplate.execute((RedisCallback<Boolean>) connection -> {
-            if (String.valueOf(Thread.currentThread().getId()).equals(new String(connection.hashCommands().hGet((lockId + LOCK).getBytes(), "threadID".getBytes())))) {
-                if (connection.hashCommands().hIncrBy((lockId + LOCK).getBytes(), "enterCount".getBytes(), -1) <= 0) {
-                    Long l = connection.del((lockId + LOCK).getBytes());
-                    return l != null && l == 1;
-                }
-                return true;
+        Set<String> sorted = new TreeSet<>(lockIds);
+        List<String> held = new ArrayList<>();
+        List<String> acquiring = new ArrayList<>(sorted.size());
+        for (String lockId : sorted) {
+            if (localLocks.isHeldByCurrentThread(lockId)) {
+                held.add(lockId);
+            } else if (localLocks.tryLock(lockId)) {
+                acquiring.add(lockId);
+            } else {
+                // 本实例内其他线程正持有其中一个锁
+                acquiring.forEach(localLocks::unlock);
+                return false;
+            }
+        }
+        boolean acquired = false;
+        try {
+            acquired = acquiring.isEmpty() || lockAllRemote(acquiring, maxLockTime, timeUnit);
+        } finally {
+            if (acquired) {
+                held.forEach(localLocks::reenter);
+                acquiring.forEach(localLocks::acquired);
+            } else {
+                acquiring.forEach(localLocks::unlock);
             }
+        }
+        return acquired;
+    }
+
+    private boolean lockAllRemote(List<String> lockIds, long maxLockTime, TimeUnit timeUnit) {
+        List<String> keys = lockKeys(lockIds);
+        String owner = LockScripts.owner();
+        long lease = maxLockTime > 0 ? timeUnit.toMillis(maxLockTime) : lockWatchdog.getLease();
+        Long ttl = redisTemplate.execute(LockScripts.LOCK_ALL, LockScripts.ARGS_SERIALIZER, null, keys, String.valueOf(lease), owner);
+        if (ttl != null) {
             return false;
-        });
+        }
+        if (maxLockTime <= 0) {
+            for (String key : keys) {
+                lockWatchdog.watch(key, owner, Thread.currentThread());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 一次往返释放多个锁，每个锁释放一次重入，只有完全释放的锁才访问Redis
+     *
+     * @param lockIds 锁ID集合
+     * @return 作为持有者释放的锁个数
+     */
+    public Long unlockAll(Collection<String> lockIds) {
+        if (lockIds.isEmpty()) {
+            return 0L;
+        }
+        long released = 0;
+        List<String> remote = new ArrayList<>(lockIds.size());
+        List<String> fullyReleased = new ArrayList<>(lockIds.size());
+        for (String lockId : new TreeSet<>(lockIds)) {
+            int remaining = localLocks.exit(lockId);
+            if (remaining > 0) {
+                released++;
+                continue;
+            }
+            remote.add(lockId);
+            if (remaining == 0) {
+                fullyReleased.add(lockId);
+            }
+        }
+        if (remote.isEmpty()) {
+            return released;
+        }
+        String owner = LockScripts.owner();
+        try {
+            Long result = redisTemplate.execute(LockScripts.UNLOCK_ALL, LockScripts.ARGS_SERIALIZER, null, lockKeys(remote),
+                    owner, LockScripts.RELEASE_CHANNEL, LockScripts.releaseMessage(""));
+            return released + (result == null ? 0 : result);
+        } finally {
+            // 本地已完全释放的锁在Redis中只持有一次，不再续期；其余的由看门狗在下一次续期发现不再持有时自动停止
+            for (String lockId : fullyReleased) {
+                lockWatchdog.unwatch(lockId + LOCK, owner);
+                localLocks.unlock(lockId);
+            }
+        }
+    }
+
+    private static List<String> lockKeys(Collection<String> lockIds) {
+        List<String> keys = new ArrayList<>(lockIds.size());
+        for (String lockId : new TreeSet<>(lockIds)) {
+            keys.add(lockId + LOCK);
+        }
+        return keys;
+    }
+
+    /**
+     * 获取分布式读写锁
+     *
+     * @param name 锁名称
+     * @return RedisReadWriteLock
+     */
+    public RedisReadWriteLock readWriteLock(String name) {
+        return new RedisReadWriteLock(redisTemplate, notifier, lockWatchdog, name);
+    }
+
+    /**
+     * 获取分布式信号量，首次使用前需通过 trySetPermits 设置许可总数
+     *
+     * @param name 信号量名称
+     * @return RedisSemaphore
+     */
+    public RedisSemaphore semaphore(String name) {
+        return new RedisSemaphore(redisTemplate, notifier, name);
+    }
+
+    /**
+     * 获取分布式倒计时门闩，首次使用前需通过 trySetCount 设置计数
+     *
+     * @param name 门闩名称
+     * @return RedisCountDownLatch
+     */
+    public RedisCountDownLatch countDownLatch(String name) {
+        return new RedisCountDownLatch(redisTemplate, notifier, name);
+    }
+
+    /**
+     * 获取锁续期看门狗
+     *
+     * @return LockWatchdog
+     */
+    public LockWatchdog lockWatchdog() {
+        return lockWatchdog;
+    }
+
+    /**
+     * 容器关闭或刷新时停止看门狗续期线程，未释放的锁在租期结束后自动过期
+     */
+    @Override
+    public void destroy() {
+        lockWatchdog.shutdown();
     }
 
     /////////////////////////////////////List////////////////////////////////////
@@ -576,6 +1073,17 @@ public class RedisUtil {
         return redisTemplate.opsForList().range(key, start, end);
     }
 
+    /**
+     * List分块读取全部元素，每块一次LRANGE，内存占用与块大小相关
+     *
+     * @param key       键
+     * @param chunkSize 每块数量
+     * @return 元素流
+     */
+    public Stream<Object> lRangeStream(String key, int chunkSize) {
+        return ScanStreams.listRange(redisTemplate, key, chunkSize);
+    }
+
 
     /**
      * List右边添加值
@@ -733,6 +1241,18 @@ public class RedisUtil {
         return redisTemplate.opsForSet().members(key);
     }
 
+    /**
+     * Set,基于SSCAN游标逐页获取元素，返回的流使用完毕后必须关闭
+     *
+     * @param key       键
+     * @param pattern   匹配字符，为null时不过滤
+     * @param batchSize 每页数量（SCAN COUNT）
+     * @return 元素流
+     */
+    public Stream<Object> sScan(String key, String pattern, int batchSize) {
+        return ScanStreams.stream(redisTemplate.opsForSet().scan(key, ScanStreams.options(pattern, batchSize)));
+    }
+
     /**
      * Set，元素是否存在
      *
@@ -908,6 +1428,28 @@ public class RedisUtil {
         return redisTemplate.opsForHash().values(key);
     }
 
+    /**
+     * Hash，获取全部field与value
+     *
+     * @param key 键
+     * @return field -> value
+     */
+    public Map<Object, Object> hgetAllMap(String key) {
+        return redisTemplate.opsForHash().entries(key);
+    }
+
+    /**
+     * Hash，基于HSCAN游标逐页获取field与value，返回的流使用完毕后必须关闭
+     *
+     * @param key       键
+     * @param pattern   field匹配字符，为null时不过滤
+     * @param batchSize 每页数量（SCAN COUNT）
+     * @return field -> value 流
+     */
+    public Stream<Map.Entry<Object, Object>> hScan(String key, String pattern, int batchSize) {
+        return ScanStreams.stream(redisTemplate.opsForHash().scan(key, ScanStreams.options(pattern, batchSize)));
+    }
+
     /**
      * Hash，删除Hash键
      *
@@ -1063,6 +1605,18 @@ public class RedisUtil {
         return redisTemplate.opsForZSet().range(key, start, end);
     }
 
+    /**
+     * ZSet，基于ZSCAN游标逐页获取元素及分数（无序），返回的流使用完毕后必须关闭
+     *
+     * @param key       键
+     * @param pattern   匹配字符，为null时不过滤
+     * @param batchSize 每页数量（SCAN COUNT）
+     * @return 元素流
+     */
+    public Stream<ZSetOperations.TypedTuple<Object>> zScan(String key, String pattern, int batchSize) {
+        return ScanStreams.stream(redisTemplate.opsForZSet().scan(key, ScanStreams.options(pattern, batchSize)));
+    }
+
     /**
      * ZSet，移除元素
      *
@@ -1343,7 +1897,31 @@ public class RedisUtil {
      * @return 结果
      */
     public Boolean setBit(String key, long offset, boolean value) {
-        return redisTemplate.opsForValue().setBit(key, offset, value);
+        Boolean old = redisTemplate.opsForValue().setBit(key, offset, value);
+        invalidateLocal(key);
+        return old;
+    }
+
+    /**
+     * Bitmap,创建布隆过滤器，已存在时沿用已保存的参数
+     *
+     * @param name               键
+     * @param expectedInsertions 预计插入的元素个数
+     * @param fpp                期望误判率
+     * @return RedisBloomFilter
+     */
+    public RedisBloomFilter bloomFilter(String name, long expectedInsertions, double fpp) {
+        return RedisBloomFilter.create(redisTemplate, name, expectedInsertions, fpp);
+    }
+
+    /**
+     * Bitmap,加载已创建的布隆过滤器
+     *
+     * @param name 键
+     * @return RedisBloomFilter，不存在时返回null
+     */
+    public RedisBloomFilter bloomFilter(String name) {
+        return RedisBloomFilter.load(redisTemplate, name);
     }
 
 }
@@ -0,0 +1,73 @@
+package com.cyitce.util.redis.annotation;
+
+import com.cyitce.util.redis.key.KeyGenerator;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @version 1.0
+ * @see BatchResultCacheImpl
+ * 批量缓存注解，作用于参数为ID集合、返回值为Collection或Map的方法，按每个ID单独缓存。
+ * 调用时通过一次MGET查询全部ID，仅以未命中的ID调用原方法，未命中的结果通过管道一次写回，最后按传入ID的顺序组装结果。
+ * <ul>
+ *     <li>返回Map时，Map的key为ID</li>
+ *     <li>返回Collection时，通过idProperty从元素中读取ID；未指定时要求返回List且与传入的ID一一对应</li>
+ *     <li>未命中的ID集合与组装的结果按方法声明的类型创建，接口类型使用对应的默认实现，无法创建的类型不使用缓存</li>
+ * </ul>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BatchResultCache {
+
+    /**
+     * Redis缓存的Key前缀，默认为：     BatchResultCache:类路径.方法名，完整的Key为 前缀:ID
+     *
+     * @return String
+     */
+    String key() default "";
+
+    /**
+     * ID集合参数的索引，参数类型需为Collection
+     *
+     * @return int
+     */
+    int param() default 0;
+
+    /**
+     * 缓存键生成器，以 前缀 与 单个ID 生成每个ID的缓存键，默认使用 HashKeyGenerator
+     *
+     * @return KeyGenerator的类型，从容器中获取
+     */
+    Class<? extends KeyGenerator> keyGenerator() default KeyGenerator.class;
+
+    /**
+     * 返回Collection时，元素中ID的属性名
+     *
+     * @return String
+     */
+    String idProperty() default "";
+
+    /**
+     * 过期时间ms,默认30s
+     *
+     * @return long
+     */
+    long expire() default 30000;
+
+    /**
+     * 过期时间随机添加一定时间ms，用于防止缓存雪崩
+     *
+     * @return long[] 二维数组，long[0] < long[1]
+     */
+    long[] expireRandomAppend() default {0, 0};
+
+    /**
+     * 原方法未返回某个ID的结果时，为该ID保存的占位值，避免反复查询不存在的ID；为空时不保存
+     *
+     * @return String
+     */
+    String nullSave() default "";
+}
@@ -0,0 +1,185 @@
+package com.cyitce.util.redis.annotation;
+
+import com.cyitce.util.redis.RedisUtil;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @version 1.0
+ * @see BatchResultCache
+ * 该类为BatchResultCache注解的具体实现类，基于Spring-Aop实现。
+ */
+@Aspect
+@Component
+public class BatchResultCacheImpl {
+
+    private final Logger logger = LoggerFactory.getLogger(BatchResultCacheImpl.class);
+    private final RedisUtil redisUtil;
+    private final BeanFactory beanFactory;
+    private final Map<Method, BatchResultCacheMetadata> metadata = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BatchResultCacheImpl(RedisUtil redisUtil, BeanFactory beanFactory) {
+        this.redisUtil = redisUtil;
+        this.beanFactory = beanFactory;
+    }
+
+    @Pointcut("@annotation(com.cyitce.util.redis.annotation.BatchResultCache)")
+    public void batchCachePointcut() {
+    }
+
+    @Around("batchCachePointcut() && @annotation(batchResultCache)")
+    public Object dealCache(ProceedingJoinPoint joinPoint, BatchResultCache batchResultCache) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        BatchResultCacheMetadata meta = metadata.get(method);
+        if (meta == null) {
+            meta = metadata.computeIfAbsent(method, m -> {
+                BatchResultCacheMetadata created = new BatchResultCacheMetadata(m, batchResultCache, beanFactory.getBean(batchResultCache.keyGenerator()));
+                if (!created.isSupported()) {
+                    logger.warn("{} - {}, skip cache", created.getMethodName(), created.getUnsupportedReason());
+                }
+                return created;
+            });
+        }
+        Object[] args = joinPoint.getArgs();
+        if (!meta.isSupported() || args[meta.getParam()] == null) {
+            return joinPoint.proceed(args);
+        }
+        String methodName = meta.getMethodName();
+        Collection<?> ids = (Collection<?>) args[meta.getParam()];
+        if (ids.isEmpty()) {
+            return joinPoint.proceed(args);
+        }
+        long start = System.currentTimeMillis();
+        // 按缓存键去重并保持顺序
+        Map<String, Object> idMap = new LinkedHashMap<>();
+        for (Object id : ids) {
+            idMap.putIfAbsent(meta.buildKey(id), id);
+        }
+        List<Object> cached = redisUtil.mget(new ArrayList<>(idMap.keySet()));
+        Map<String, Object> values = new HashMap<>(idMap.size() * 2);
+        Collection<Object> missing = meta.newIds();
+        List<String> missingKeys = new ArrayList<>();
+        int index = 0;
+        for (Map.Entry<String, Object> entry : idMap.entrySet()) {
+            Object value = cached == null ? null : cached.get(index);
+            index++;
+            if (value == null) {
+                missing.add(entry.getValue());
+                missingKeys.add(entry.getKey());
+            } else if (!isNullSave(batchResultCache, value)) {
+                values.put(entry.getKey(), value);
+            }
+        }
+        logger.debug("{} - {} ids, {} hit", methodName, idMap.size(), idMap.size() - missingKeys.size());
+        if (!missingKeys.isEmpty()) {
+            Object[] missArgs = args.clone();
+            missArgs[meta.getParam()] = missing;
+            Map<String, Object> loaded = toMap(joinPoint.proceed(missArgs), missing, meta, batchResultCache);
+            if (loaded != null) {
+                Map<String, Object> save = new LinkedHashMap<>(missingKeys.size() * 2);
+                for (String key : missingKeys) {
+                    Object value = loaded.get(key);
+                    if (value != null) {
+                        values.put(key, value);
+                        save.put(key, value);
+                    } else if (!batchResultCache.nullSave().isEmpty()) {
+                        save.put(key, batchResultCache.nullSave());
+                    }
+                }
+                saveCache(batchResultCache, save);
+            } else {
+                return joinPoint.proceed(args);
+            }
+            logger.info("{} - load {} missing ids, used time {}ms", methodName, missingKeys.size(), System.currentTimeMillis() - start);
+        }
+        // 按传入ID的顺序组装为声明的返回类型
+        if (meta.isReturnMap()) {
+            Map<Object, Object> result = meta.newResultMap();
+            for (Map.Entry<String, Object> entry : idMap.entrySet()) {
+                Object value = values.get(entry.getKey());
+                if (value != null) {
+                    result.put(entry.getValue(), value);
+                }
+            }
+            return result;
+        }
+        Collection<Object> result = meta.newResultCollection();
+        for (Object id : ids) {
+            Object value = values.get(meta.buildKey(id));
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 将原方法的返回值转换为 缓存键 -> 值，无法对应时返回null
+     */
+    private Map<String, Object> toMap(Object loaded, Collection<Object> missing, BatchResultCacheMetadata meta, BatchResultCache batchResultCache) {
+        Map<String, Object> map = new HashMap<>(missing.size() * 2);
+        if (loaded == null) {
+            return map;
+        }
+        if (loaded instanceof Map) {
+            ((Map<?, ?>) loaded).forEach((id, value) -> map.put(meta.buildKey(id), value));
+            return map;
+        }
+        Collection<?> collection = (Collection<?>) loaded;
+        if (!batchResultCache.idProperty().isEmpty()) {
+            for (Object value : collection) {
+                if (value != null) {
+                    map.put(meta.buildKey(new BeanWrapperImpl(value).getPropertyValue(batchResultCache.idProperty())), value);
+                }
+            }
+            return map;
+        }
+        if (!(collection instanceof List) || collection.size() != missing.size()) {
+            logger.warn("{} - result is not a List of {} elements, set idProperty to map results", meta.getMethodName(), missing.size());
+            return null;
+        }
+        Iterator<?> values = collection.iterator();
+        for (Object id : missing) {
+            map.put(meta.buildKey(id), values.next());
+        }
+        return map;
+    }
+
+    private void saveCache(BatchResultCache batchResultCache, Map<String, Object> save) {
+        if (save.isEmpty()) {
+            return;
+        }
+        long expire = batchResultCache.expire();
+        if (expire <= 0) {
+            redisUtil.mset(save);
+            return;
+        }
+        long jitter = 0;
+        long[] expireRandomAppend = batchResultCache.expireRandomAppend();
+        if (expireRandomAppend.length == ResultCacheImpl.EXPIRE_RANDOM_LENGTH && expireRandomAppend[0] <= expireRandomAppend[1]) {
+            expire += expireRandomAppend[0];
+            jitter = expireRandomAppend[1] - expireRandomAppend[0];
+        }
+        // 随机追加时间按键分别抽取，同一批写入的键不会同时过期
+        redisUtil.mset(save, expire, jitter, TimeUnit.MILLISECONDS);
+    }
+
+    private static boolean isNullSave(BatchResultCache batchResultCache, Object value) {
+        return !batchResultCache.nullSave().isEmpty() && batchResultCache.nullSave().equals(value);
+    }
+}
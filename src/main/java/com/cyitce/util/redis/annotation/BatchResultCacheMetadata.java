@@ -0,0 +1,137 @@
+package com.cyitce.util.redis.annotation;
+
+import com.cyitce.util.redis.key.KeyGenerator;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * @version 1.0
+ * @see BatchResultCacheImpl
+ * 被BatchResultCache注解的方法的预编译元数据，每个方法只解析一次。
+ * 每个ID的缓存键由KeyGenerator生成（前缀:ID），与ResultCache的单参数键格式一致；
+ * 未命中的ID集合与返回结果按方法声明的类型创建：接口使用对应的默认实现（List→ArrayList、Set→LinkedHashSet、
+ * SortedSet→TreeSet、Map→LinkedHashMap、SortedMap→TreeMap），具体类型需有public无参构造器，否则不支持缓存。
+ */
+public class BatchResultCacheMetadata {
+
+    private static final int[] ID_PARAM = {0};
+
+    private final String methodName;
+    private final String keyPrefix;
+    private final KeyGenerator keyGenerator;
+    private final int param;
+    private final boolean returnMap;
+    private final Supplier<?> idsFactory;
+    private final Supplier<?> resultFactory;
+    private final String unsupportedReason;
+
+    public BatchResultCacheMetadata(Method method, BatchResultCache batchResultCache, KeyGenerator keyGenerator) {
+        this.methodName = "BatchResultCache:" + method.getDeclaringClass().getName() + "." + method.getName();
+        this.keyPrefix = batchResultCache.key().isEmpty() ? methodName : batchResultCache.key();
+        this.keyGenerator = keyGenerator;
+        this.param = batchResultCache.param();
+        Class<?> returnType = method.getReturnType();
+        this.returnMap = Map.class.isAssignableFrom(returnType);
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        Class<?> idsType = param >= 0 && param < parameterTypes.length ? parameterTypes[param] : null;
+        this.idsFactory = idsType != null && Collection.class.isAssignableFrom(idsType) ? factory(idsType) : null;
+        this.resultFactory = returnMap || Collection.class.isAssignableFrom(returnType) ? factory(returnType) : null;
+        if (idsFactory == null) {
+            this.unsupportedReason = "parameter " + param + " must be a Collection that can be instantiated";
+        } else if (resultFactory == null) {
+            this.unsupportedReason = "return type " + returnType.getName() + " must be a Collection or Map that can be instantiated";
+        } else {
+            this.unsupportedReason = null;
+        }
+    }
+
+    /**
+     * 按声明类型选择实现类
+     *
+     * @param type 声明的Collection或Map类型
+     * @return 实例工厂，无法实例化时返回null
+     */
+    static Supplier<?> factory(Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            if (type.isAssignableFrom(ArrayList.class)) {
+                return ArrayList::new;
+            } else if (type.isAssignableFrom(LinkedHashSet.class)) {
+                return LinkedHashSet::new;
+            } else if (type.isAssignableFrom(TreeSet.class)) {
+                return TreeSet::new;
+            } else if (type.isAssignableFrom(LinkedHashMap.class)) {
+                return LinkedHashMap::new;
+            } else if (type.isAssignableFrom(TreeMap.class)) {
+                return TreeMap::new;
+            }
+            return null;
+        }
+        Constructor<?> constructor = ClassUtils.getConstructorIfAvailable(type);
+        return constructor == null ? null : () -> BeanUtils.instantiateClass(constructor);
+    }
+
+    /**
+     * 生成单个ID的缓存键：前缀:ID
+     *
+     * @param id ID
+     * @return 缓存键
+     */
+    public String buildKey(Object id) {
+        return keyGenerator.generate(keyPrefix, new Object[]{id}, ID_PARAM);
+    }
+
+    /**
+     * 是否支持缓存
+     *
+     * @return boolean
+     */
+    public boolean isSupported() {
+        return unsupportedReason == null;
+    }
+
+    public String getUnsupportedReason() {
+        return unsupportedReason;
+    }
+
+    /**
+     * 创建与参数声明类型一致的ID集合
+     */
+    @SuppressWarnings("unchecked")
+    public Collection<Object> newIds() {
+        return (Collection<Object>) idsFactory.get();
+    }
+
+    /**
+     * 创建与返回值声明类型一致的Map，仅returnMap时可用
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Object, Object> newResultMap() {
+        return (Map<Object, Object>) resultFactory.get();
+    }
+
+    /**
+     * 创建与返回值声明类型一致的Collection，仅非returnMap时可用
+     */
+    @SuppressWarnings("unchecked")
+    public Collection<Object> newResultCollection() {
+        return (Collection<Object>) resultFactory.get();
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public int getParam() {
+        return param;
+    }
+
+    public boolean isReturnMap() {
+        return returnMap;
+    }
+}
@@ -0,0 +1,74 @@
+package com.cyitce.util.redis.annotation;
+
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * @version 1.0
+ * @see ResultCacheImpl
+ * 调用线程的上下文快照，在调用线程上捕获，在线程池中执行原方法时恢复。
+ * 包括slf4j MDC、线程上下文类加载器，以及容器中唯一的TaskDecorator所捕获的上下文（如安全上下文）。
+ * 每个快照只用于一次call。
+ */
+final class CallerContext {
+
+    private final Map<String, String> mdc;
+    private final ClassLoader classLoader;
+    private final Runnable decorated;
+    private Runnable body;
+
+    private CallerContext(TaskDecorator decorator) {
+        this.mdc = MDC.getCopyOfContextMap();
+        this.classLoader = Thread.currentThread().getContextClassLoader();
+        // TaskDecorator在decorate时捕获上下文，在run时恢复，因此必须在调用线程上decorate
+        this.decorated = decorator == null ? null : decorator.decorate(() -> body.run());
+    }
+
+    /**
+     * 在当前（调用）线程上捕获上下文
+     *
+     * @param decorator 可为null
+     * @return CallerContext
+     */
+    static CallerContext capture(TaskDecorator decorator) {
+        return new CallerContext(decorator);
+    }
+
+    /**
+     * 在捕获的上下文中执行，执行后恢复当前线程原有的上下文
+     *
+     * @param supplier 要执行的逻辑
+     * @return supplier的结果
+     */
+    @SuppressWarnings("unchecked")
+    <T> T call(Supplier<T> supplier) {
+        Thread thread = Thread.currentThread();
+        Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+        ClassLoader previousClassLoader = thread.getContextClassLoader();
+        setMdc(mdc);
+        thread.setContextClassLoader(classLoader);
+        try {
+            if (decorated == null) {
+                return supplier.get();
+            }
+            Object[] result = new Object[1];
+            body = () -> result[0] = supplier.get();
+            decorated.run();
+            return (T) result[0];
+        } finally {
+            setMdc(previousMdc);
+            thread.setContextClassLoader(previousClassLoader);
+        }
+    }
+
+    private static void setMdc(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
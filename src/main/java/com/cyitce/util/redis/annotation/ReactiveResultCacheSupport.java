@@ -0,0 +1,67 @@
+package com.cyitce.util.redis.annotation;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * @version 1.0
+ * @see ResultCacheImpl
+ * 返回Mono/Flux的方法的缓存支持，仅在classpath中存在reactor时才会被加载。
+ * 缓存查找与写回在Schedulers.boundedElastic()中执行，不占用订阅线程（如Netty事件循环）；Flux会被收集为List后缓存，命中时再逐个发出；命中null占位时返回空。
+ * 缓存写回失败只记录日志，不影响已成功的结果。
+ */
+final class ReactiveResultCacheSupport {
+
+    private ReactiveResultCacheSupport() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static Object deal(ResultCacheImpl impl, ProceedingJoinPoint joinPoint, ResultCache resultCache, ResultCacheMetadata meta, String cacheKey) {
+        Scheduler scheduler = Schedulers.boundedElastic();
+        Mono<Object> cached = Mono.fromCallable(() -> impl.lookupValue(joinPoint, resultCache, meta, cacheKey))
+                .subscribeOn(scheduler);
+        if (meta.getAsyncType() == ResultCacheMetadata.AsyncType.MONO) {
+            return cached.switchIfEmpty(Mono.defer(() -> {
+                if (impl.rejected(meta, joinPoint.getArgs())) {
+                    return Mono.empty();
+                }
+                long start = System.currentTimeMillis();
+                return ReactiveResultCacheSupport.<Mono<Object>>proceed(joinPoint)
+                        .publishOn(scheduler)
+                        .doOnNext(value -> impl.saveCacheQuietly(resultCache, meta, cacheKey, value, System.currentTimeMillis() - start));
+            })).filter(value -> value != ResultCacheImpl.NULL_VALUE);
+        }
+        return cached.switchIfEmpty(Mono.defer(() -> {
+            if (impl.rejected(meta, joinPoint.getArgs())) {
+                return Mono.empty();
+            }
+            long start = System.currentTimeMillis();
+            return ReactiveResultCacheSupport.<Flux<Object>>proceed(joinPoint)
+                    .collectList()
+                    .publishOn(scheduler)
+                    .doOnNext(values -> impl.saveCacheQuietly(resultCache, meta, cacheKey, values, System.currentTimeMillis() - start))
+                    .map(values -> (Object) values);
+        })).flatMapMany(cache -> {
+            if (cache == ResultCacheImpl.NULL_VALUE) {
+                return Flux.empty();
+            }
+            return cache instanceof List ? Flux.fromIterable((List<Object>) cache) : Flux.just(cache);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proceed(ProceedingJoinPoint joinPoint) {
+        try {
+            return (T) joinPoint.proceed(joinPoint.getArgs());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+}
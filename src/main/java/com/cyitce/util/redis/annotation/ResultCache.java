@@ -1,5 +1,6 @@
 package com.cyitce.util.redis.annotation;
 
+import com.cyitce.util.redis.key.KeyGenerator;
 import org.springframework.core.annotation.AliasFor;
 
 import java.lang.annotation.ElementType;
@@ -36,6 +37,13 @@ public @interface ResultCache {
      */
     int[] params() default {};
 
+    /**
+     * 缓存键生成器，默认使用 HashKeyGenerator：简单类型参数直接拼接，其他对象取哈希
+     *
+     * @return 生成器类型，需注册为Spring Bean
+     */
+    Class<? extends KeyGenerator> keyGenerator() default KeyGenerator.class;
+
     /**
      * 过期时间ms,默认30s
      *
@@ -43,6 +51,30 @@ public @interface ResultCache {
      */
     long expire() default 30000;
 
+    /**
+     * 软过期时间ms，需小于expire，小于等于0时不开启。
+     * 超过软过期时间后，调用方立即得到旧值，同时集群中仅有一个调用方在后台刷新缓存；expire为硬过期时间。
+     *
+     * @return long
+     */
+    long softExpire() default 0;
+
+    /**
+     * 是否开启概率性提前重算（XFetch）。缓存中将记录计算耗时，越接近过期时间，调用方越有可能主动提前重算，
+     * 从而避免热点键过期瞬间的大量未命中与锁等待。与未命中时一样，同一时间本实例内只有一个调用方、集群内只有拿到锁的调用方重算，
+     * 其他调用方继续返回旧值，不等待。
+     *
+     * @return boolean
+     */
+    boolean earlyRecompute() default false;
+
+    /**
+     * 提前重算系数，大于1时更早重算，小于1时更晚重算
+     *
+     * @return double
+     */
+    double beta() default 1.0;
+
     /**
      * 过期时间随机添加一定时间ms，用于防止缓存雪崩
      *
@@ -64,6 +96,16 @@ public @interface ResultCache {
      */
     String nullSave() default "";
 
+    /**
+     * 布隆过滤器名称，未命中缓存时先判断 params 指定的参数（以:拼接）是否可能存在，一定不存在时直接返回null，不再执行方法。
+     * 过滤器需事先通过 RedisUtil.bloomFilter(name, expectedInsertions, fpp) 创建并导入全部ID，新增数据时需同步添加；
+     * 过滤器尚未创建、已删除或位数组被淘汰时不做拦截；删除后以不同参数重建时自动使用新参数
+     *
+     * @return String，默认不开启
+     * @see com.cyitce.util.redis.bloom.RedisBloomFilter
+     */
+    String bloomFilter() default "";
+
     /**
      * 是否开启分布式锁，当缓存不存在并保存缓存时，开启同步锁。
      *
@@ -73,8 +115,48 @@ public @interface ResultCache {
 
     /**
      * 同步锁最大持有时间，当持有锁超过一定时间后自动释放。单位ms
+     * 小于等于0时以看门狗租期（redis-util.lock.watchdog-lease）加锁并在方法执行期间自动续期，持有实例宕机后锁在一个租期内释放
+     *
+     * @return long，默认0，由看门狗续期
+     */
+    long maxLockTime() default 0;
+
+    /**
+     * 未拿到同步锁时等待缓存写入的最大时间，写入完成后将通过通知立即唤醒。单位ms
+     *
+     * @return long，默认1s
+     */
+    long waitTime() default 1000;
+
+    /**
+     * 是否开启本地近端缓存（L1），开启后命中本地缓存时不再访问Redis，也不再反序列化。
+     * 默认所有命中返回同一个对象，调用方与回调函数不应修改返回值，需要修改时开启localCopy
+     *
+     * @return boolean
+     */
+    boolean localCache() default false;
+
+    /**
+     * 本地缓存是否保存序列化后的字节，每次命中都反序列化出新的对象，修改返回值不影响后续命中。
+     * 仅在开启localCache时有效，代价是每次命中都要反序列化
      *
-     * @return long，默认3分钟。
+     * @return boolean
+     */
+    boolean localCopy() default false;
+
+    /**
+     * 本地缓存过期时间ms，不会超过Redis中剩余的过期时间；小于等于0时使用配置项 redis-util.near-cache.default-expire
+     *
+     * @return long
+     */
+    long localExpire() default 0;
+
+    /**
+     * 是否通过批量加载器查找Redis，与已排队的查找合并为一次MGET，适合被多个线程大量并发调用的方法。
+     * 在RedisBatchLoader.openScope()开启的作用域内调用时，会连同作用域内已收集的查找一起发送
+     *
+     * @return boolean
+     * @see com.cyitce.util.redis.loader.RedisBatchLoader
      */
-    long maxLockTime() default 1800000;
+    boolean batchLoad() default false;
 }
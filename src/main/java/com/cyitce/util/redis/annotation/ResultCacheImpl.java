@@ -1,11 +1,16 @@
 package com.cyitce.util.redis.annotation;
 
 import com.cyitce.util.redis.RedisUtil;
-import com.fasterxml.jackson.annotation.JsonAutoDetect;
-import com.fasterxml.jackson.annotation.PropertyAccessor;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.cyitce.util.redis.bloom.RedisBloomFilter;
+import com.cyitce.util.redis.cache.CacheEntry;
+import com.cyitce.util.redis.cache.CacheStatistics;
+import com.cyitce.util.redis.cache.NearCache;
+import com.cyitce.util.redis.configs.RedisUtilProperties;
+import com.cyitce.util.redis.hotkey.HotKeyDetector;
+import com.cyitce.util.redis.key.KeyGenerator;
+import com.cyitce.util.redis.loader.RedisBatchLoader;
+import com.cyitce.util.redis.metrics.RedisMetrics;
+import com.cyitce.util.redis.notify.RedisNotifier;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -13,12 +18,22 @@ import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
-import java.util.concurrent.TimeUnit;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
 
 /**
  * @author jianhongyu
@@ -31,17 +46,57 @@ import java.util.concurrent.TimeUnit;
 @Component
 public class ResultCacheImpl {
 
-    public static final int WAIT_TIMES = 20;
+    public static final String READY_TOPIC = "resultCache:ready";
     public static final int EXPIRE_RANDOM_LENGTH = 2;
+    /**
+     * 异步方法命中了null占位或类型不符的缓存，应以null（或空的Mono/Flux）完成，而不是重新加载
+     */
+    static final Object NULL_VALUE = new Object();
     private final Logger logger = LoggerFactory.getLogger(ResultCacheImpl.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
     private final RedisUtil redisUtil;
+    private final NearCache nearCache;
+    private final RedisNotifier notifier;
+    private final RedisBatchLoader batchLoader;
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final Map<Method, ResultCacheMetadata> metadata = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Map<String, RedisBloomFilter> bloomFilters = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor refreshExecutor;
+    private final ThreadPoolExecutor asyncExecutor;
+    private final BeanFactory beanFactory;
+    private final RedisMetrics metrics;
+    private final HotKeyDetector hotKeyDetector;
+    private final TaskDecorator taskDecorator;
+    private final RedisSerializer<Object> serializer;
 
     @Autowired
-    public ResultCacheImpl(RedisUtil redisUtil) {
+    @SuppressWarnings("unchecked")
+    public ResultCacheImpl(RedisUtil redisUtil, NearCache nearCache, RedisNotifier notifier, RedisBatchLoader batchLoader,
+                           RedisUtilProperties properties, BeanFactory beanFactory, RedisMetrics metrics,
+                           HotKeyDetector hotKeyDetector, ObjectProvider<TaskDecorator> taskDecorator) {
         this.redisUtil = redisUtil;
-        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        this.serializer = (RedisSerializer<Object>) redisUtil.redisTemplate().getValueSerializer();
+        this.taskDecorator = taskDecorator.getIfUnique();
+        this.hotKeyDetector = hotKeyDetector;
+        this.metrics = metrics;
+        this.beanFactory = beanFactory;
+        this.nearCache = nearCache;
+        this.notifier = notifier;
+        this.notifier.prepareWaiters(READY_TOPIC);
+        this.batchLoader = batchLoader;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("result-cache-refresh-");
+        threadFactory.setDaemon(true);
+        int refreshThreads = properties.getResultCache().getRefreshThreads();
+        this.refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.getResultCache().getRefreshQueueSize()), threadFactory);
+        this.refreshExecutor.allowCoreThreadTimeOut(true);
+        CustomizableThreadFactory asyncThreadFactory = new CustomizableThreadFactory("result-cache-async-");
+        asyncThreadFactory.setDaemon(true);
+        int asyncThreads = properties.getResultCache().getAsyncThreads();
+        // 队列满时拒绝，调用线程不执行阻塞的Redis查找
+        this.asyncExecutor = new ThreadPoolExecutor(asyncThreads, asyncThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.getResultCache().getAsyncQueueSize()), asyncThreadFactory);
+        this.asyncExecutor.allowCoreThreadTimeOut(true);
     }
 
     @Pointcut("@annotation(com.cyitce.util.redis.annotation.ResultCache)")
@@ -50,112 +105,476 @@ public class ResultCacheImpl {
 
     @Around("reqCachePointcut() && @annotation(resultCache)")
     public Object dealCache(ProceedingJoinPoint joinPoint, ResultCache resultCache) {
-        String methodName = "ResultCache:" + joinPoint.getSignature().getDeclaringTypeName() + "." + joinPoint.getSignature().getName();
         long start = System.currentTimeMillis();
+        ResultCacheMetadata meta = metadata(joinPoint, resultCache);
+        String methodName = meta.getMethodName();
         Object result = null;
-        StringBuilder keyBuilder = new StringBuilder(resultCache.key().isEmpty() ? methodName : resultCache.key());
-        for (int param : resultCache.params()) {
-            try {
-                keyBuilder.append(':').append(objectMapper.writeValueAsString(joinPoint.getArgs()[param]));
-            } catch (JsonProcessingException e) {
-                keyBuilder.append(joinPoint.getArgs()[param].toString());
-            }
+        String cacheKey = meta.buildKey(joinPoint.getArgs());
+        logger.debug("{} - cache key: {}", methodName, cacheKey);
+        if (meta.getAsyncType() == ResultCacheMetadata.AsyncType.FUTURE) {
+            return dealFuture(joinPoint, resultCache, meta, cacheKey);
+        } else if (meta.getAsyncType() != ResultCacheMetadata.AsyncType.NONE) {
+            return ReactiveResultCacheSupport.deal(this, joinPoint, resultCache, meta, cacheKey);
         }
-        String cacheKey = keyBuilder.toString();
-        logger.info(methodName + " - cache key: " + cacheKey);
-        Object cache = redisUtil.get(cacheKey);
-        if (cache != null) {
+        Object cache = lookup(cacheKey, resultCache, meta);
+        if (cache instanceof CacheEntry && resultCache.earlyRecompute()
+                && ((CacheEntry) cache).shouldRecomputeEarly(System.currentTimeMillis(), resultCache.beta())
+                && (result = recomputeEarly(joinPoint, resultCache, meta, cacheKey, (CacheEntry) cache)) != null) {
+            logger.info("{} - recompute early, used time {}ms", methodName, System.currentTimeMillis() - start);
+        } else if (cache != null) {
+            if (cache instanceof CacheEntry) {
+                CacheEntry entry = (CacheEntry) cache;
+                if (entry.isSoftExpired(System.currentTimeMillis())) {
+                    // 已软过期，返回旧值并在后台刷新
+                    refreshAsync(joinPoint, resultCache, meta, cacheKey);
+                }
+                cache = entry.getValue();
+            }
             result = cache;
-            long end = System.currentTimeMillis();
-            logger.info(methodName + " - use cache, used time " + (end - start) + "ms");
-            if (!resultCache.callbackMethod().isEmpty()) {
-                result = toCallback(methodName, joinPoint.getTarget(), resultCache.callbackMethod(), result);
+            logger.debug("{} - use cache, used time {}ms", methodName, System.currentTimeMillis() - start);
+            if (meta.hasCallback()) {
+                result = toCallback(meta, joinPoint.getTarget(), result);
             }
 
+        } else if (rejected(meta, joinPoint.getArgs())) {
+            logger.debug("{} - rejected by bloom filter, used time {}ms", methodName, System.currentTimeMillis() - start);
         } else {
-            if (resultCache.syncLock()) {
-                // 当缓存不存在，或者过期时，开启一个锁
-                if (redisUtil.lock(cacheKey, resultCache.maxLockTime(), TimeUnit.MILLISECONDS)) {
-                    // redisTemplate.opsForValue().setIfAbsent(cacheKey + LOCK, LOCK/*, resultCache.maxLockTime(), TimeUnit.MILLISECONDS*/)) {
-                    // redisTemplate.expire(cacheKey + LOCK,resultCache.maxLockTime(), TimeUnit.MILLISECONDS);
-                    logger.info(methodName + " - set lock success");
-                    result = doSaveCache(joinPoint, resultCache, cacheKey);
-                    if (!redisUtil.unlock(cacheKey)) {
-                        logger.warn(methodName + " - unlock failed");
-                    }
-                    long end = System.currentTimeMillis();
-                    logger.info(methodName + " - save cache has lock, used time " + (end - start) + "ms");
-                } else {
-                    // 等待拿锁的进程结束
-                    // 最多等待20次
-                    for (int i = 0; i < WAIT_TIMES; i++) {
-                        try {
-                            Thread.sleep(50);
-                        } catch (InterruptedException e) {
-                            e.printStackTrace();
-                        }
-                        if ((result = redisUtil.get(cacheKey)) != null) {
-                            break;
-                        }
-                    }
-                    long end = System.currentTimeMillis();
-                    if (result == null) {
-                        logger.warn(methodName + " - wait cache failed, used time " + (end - start) + "ms");
-                    } else {
-                        logger.info(methodName + " - wait cache success, used time " + (end - start) + "ms");
-                    }
-                    if (!resultCache.callbackMethod().isEmpty()) {
-                        result = toCallback(methodName, joinPoint.getTarget(), resultCache.callbackMethod(), result);
+            Flight flight = new Flight();
+            Flight leader = inFlight.putIfAbsent(cacheKey, flight);
+            if (leader == null || leader.thread == Thread.currentThread()) {
+                try {
+                    result = load(joinPoint, resultCache, meta, cacheKey, start, flight);
+                } finally {
+                    completeFlight(flight, result);
+                    if (leader == null) {
+                        inFlight.remove(cacheKey, flight);
                     }
                 }
             } else {
-
-                result = doSaveCache(joinPoint, resultCache, cacheKey);
-                long end = System.currentTimeMillis();
-                logger.info(methodName + " - save cache no lock, used time " + (end - start) + "ms");
+                // 同一JVM内已有线程在加载该缓存，直接等待其结果
+                long waitStart = System.nanoTime();
+                try {
+                    // 看门狗续期时加载时间不设上限，等待至加载线程完成
+                    byte[] bytes = resultCache.maxLockTime() > 0
+                            ? leader.get(Math.max(resultCache.waitTime(), resultCache.maxLockTime()), TimeUnit.MILLISECONDS)
+                            : leader.get();
+                    // 每个等待者反序列化出自己的副本，与加载线程及其他等待者互不影响
+                    result = bytes == null ? null : serializer.deserialize(bytes);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException | TimeoutException e) {
+                    logger.warn("{} - wait in-flight load failed: {}", methodName, e.toString());
+                }
+                meta.getMeters().lockWait(System.nanoTime() - waitStart);
+                logger.info("{} - join in-flight load, used time {}ms", methodName, System.currentTimeMillis() - start);
+                if (meta.hasCallback()) {
+                    result = toCallback(meta, joinPoint.getTarget(), result);
+                }
             }
         }
         // 返回类型不统一，返回空
-        if (result != null && !((MethodSignature) joinPoint.getSignature()).getReturnType().equals(result.getClass())) {
+        if (result != null && !meta.isReturnType(result)) {
             result = null;
         }
         return result;
     }
 
-    private Object doSaveCache(ProceedingJoinPoint joinPoint, ResultCache resultCache, String cacheKey) {
+    /**
+     * 获取方法的预编译元数据，每个方法只解析一次
+     */
+    private ResultCacheMetadata metadata(ProceedingJoinPoint joinPoint, ResultCache resultCache) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        ResultCacheMetadata meta = metadata.get(method);
+        if (meta == null) {
+            meta = metadata.computeIfAbsent(method, m -> new ResultCacheMetadata(m, joinPoint.getTarget().getClass(), resultCache,
+                    beanFactory.getBean(resultCache.keyGenerator()), metrics.resultCache(m.getDeclaringClass().getName() + "." + m.getName())));
+        }
+        return meta;
+    }
+
+    /**
+     * 缓存未命中时加载，同一JVM内同一个缓存键同时只有一个线程执行
+     */
+    private Object load(ProceedingJoinPoint joinPoint, ResultCache resultCache, ResultCacheMetadata meta, String cacheKey, long start, Flight flight) {
+        String methodName = meta.getMethodName();
+        Object result = null;
+        if (resultCache.syncLock()) {
+            // 当缓存不存在，或者过期时，开启一个锁
+            long waitStart = System.nanoTime();
+            if (redisUtil.lock(cacheKey, resultCache.maxLockTime(), TimeUnit.MILLISECONDS)) {
+                meta.getMeters().lockWait(System.nanoTime() - waitStart);
+                logger.info("{} - set lock success", methodName);
+                result = doSaveCache(joinPoint, resultCache, meta, cacheKey);
+                // 唤醒等待该缓存的线程
+                notifier.publish(READY_TOPIC, cacheKey);
+                if (!redisUtil.unlock(cacheKey)) {
+                    logger.warn("{} - unlock failed", methodName);
+                }
+                logger.info("{} - save cache has lock, used time {}ms", methodName, System.currentTimeMillis() - start);
+            } else {
+                // 等待拿锁的进程写入缓存后发出通知，先注册再检查，避免错过通知
+                try (RedisNotifier.Waiter waiter = notifier.waiter(READY_TOPIC, cacheKey)) {
+                    if ((result = redisUtil.get(cacheKey)) == null) {
+                        waiter.await(resultCache.waitTime(), TimeUnit.MILLISECONDS);
+                        result = redisUtil.get(cacheKey);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                meta.getMeters().lockWait(System.nanoTime() - waitStart);
+                if (result != null && resultCache.localCache()) {
+                    nearCache.put(cacheKey, result, localExpire(resultCache, resultCache.expire()), resultCache.localCopy());
+                }
+                result = unwrap(result);
+                long used = System.currentTimeMillis() - start;
+                if (result == null) {
+                    logger.warn("{} - wait cache failed, used time {}ms", methodName, used);
+                } else {
+                    logger.info("{} - wait cache success, used time {}ms", methodName, used);
+                }
+                completeFlight(flight, result);
+                if (meta.hasCallback()) {
+                    result = toCallback(meta, joinPoint.getTarget(), result);
+                }
+            }
+        } else {
+
+            result = doSaveCache(joinPoint, resultCache, meta, cacheKey);
+            logger.info("{} - save cache no lock, used time {}ms", methodName, System.currentTimeMillis() - start);
+        }
+        return result;
+    }
+
+    /**
+     * XFetch提前重算：与未命中时一样，本实例内通过inFlight、集群内通过分布式锁只选出一个重算者；
+     * 其他调用方不等待，继续使用尚未过期的旧值
+     *
+     * @return 重算后的值，未被选为重算者时返回null
+     */
+    private Object recomputeEarly(ProceedingJoinPoint joinPoint, ResultCache resultCache, ResultCacheMetadata meta, String cacheKey, CacheEntry cache) {
+        Flight flight = new Flight();
+        if (inFlight.putIfAbsent(cacheKey, flight) != null) {
+            return null;
+        }
         Object result = null;
         try {
-            result = joinPoint.proceed(joinPoint.getArgs());
+            if (resultCache.syncLock() && !redisUtil.lock(cacheKey, resultCache.maxLockTime(), TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+            try {
+                result = doSaveCache(joinPoint, resultCache, meta, cacheKey);
+                notifier.publish(READY_TOPIC, cacheKey);
+            } finally {
+                if (resultCache.syncLock() && !redisUtil.unlock(cacheKey)) {
+                    logger.warn("{} - unlock failed", meta.getMethodName());
+                }
+            }
+            return result;
+        } finally {
+            // 缓存恰好过期时可能有等待者加入，未重算时以旧值完成
+            completeFlight(flight, result != null ? result : cache.getValue());
+            inFlight.remove(cacheKey, flight);
+        }
+    }
+
+    /**
+     * 依次查找本地缓存与Redis
+     */
+    private Object lookup(String cacheKey, ResultCache resultCache, ResultCacheMetadata meta) {
+        Object cache;
+        if (resultCache.localCache() && (cache = nearCache.get(cacheKey)) != null) {
+            meta.getMeters().hit();
+            return cache;
+        }
+        if (resultCache.batchLoad()) {
+            // 批量加载不经过RedisUtil.get，在此统计热点键
+            if ((cache = hotKeyDetector.getLocal(cacheKey)) == null) {
+                cache = batchLoader.get(cacheKey);
+                hotKeyDetector.record(cacheKey, cache);
+            }
+            if (cache != null && resultCache.localCache()) {
+                nearCache.put(cacheKey, cache, localExpire(resultCache, resultCache.expire()), resultCache.localCopy());
+            }
+        } else {
+            cache = resultCache.localCache() ? getAndCacheLocal(cacheKey, resultCache) : redisUtil.get(cacheKey);
+        }
+        if (resultCache.localCache()) {
+            // 只统计开启本地缓存的方法，L1/L2比例才能反映本地缓存的效果
+            nearCache.statistics().recordL2(cache != null);
+        }
+        if (cache != null) {
+            meta.getMeters().hit();
+        } else {
+            meta.getMeters().miss();
+        }
+        return cache;
+    }
+
+    /**
+     * 查找缓存并取出包装中的值、执行回调，供异步方法使用
+     *
+     * @return 缓存值，不存在时返回null；命中nullSave占位或类型与泛型参数不符时返回NULL_VALUE
+     */
+    Object lookupValue(ProceedingJoinPoint joinPoint, ResultCache resultCache, ResultCacheMetadata meta, String cacheKey) {
+        Object result = unwrap(lookup(cacheKey, resultCache, meta));
+        if (result == null) {
+            return null;
+        }
+        if (resultCache.nullSave().equals(result)) {
+            return NULL_VALUE;
+        }
+        if (meta.hasCallback()) {
+            result = toCallback(meta, joinPoint.getTarget(), result);
+        }
+        return result == null || !meta.isValueType(result) ? NULL_VALUE : result;
+    }
+
+    /**
+     * 返回CompletableFuture的方法：缓存查找在线程池中执行，不阻塞调用线程；
+     * 未命中时在调用线程捕获的上下文（MDC、TaskDecorator等）中执行原方法，future完成后在线程池中写回，写回失败不影响返回的future。
+     * 线程池队列已满时跳过缓存，直接执行原方法
+     */
+    private Object dealFuture(ProceedingJoinPoint joinPoint, ResultCache resultCache, ResultCacheMetadata meta, String cacheKey) {
+        CallerContext context = CallerContext.capture(taskDecorator);
+        CompletableFuture<Object> cached;
+        try {
+            cached = CompletableFuture.supplyAsync(() -> {
+                Object cache = lookupValue(joinPoint, resultCache, meta, cacheKey);
+                return cache == null && rejected(meta, joinPoint.getArgs()) ? NULL_VALUE : cache;
+            }, asyncExecutor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("{} - async queue is full, skip cache", meta.getMethodName());
+            return proceedFuture(joinPoint);
+        }
+        return cached.thenCompose(cache -> {
+            if (cache != null) {
+                return CompletableFuture.completedFuture(cache == NULL_VALUE ? null : cache);
+            }
+            long start = System.currentTimeMillis();
+            CompletableFuture<Object> future = context.call(() -> proceedFuture(joinPoint));
+            future.whenCompleteAsync((value, error) -> {
+                if (error == null) {
+                    saveCacheQuietly(resultCache, meta, cacheKey, value, System.currentTimeMillis() - start);
+                }
+            }, asyncExecutor);
+            return future;
+        });
+    }
+
+    /**
+     * 执行返回CompletableFuture的原方法，异常与null都转换为future
+     */
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<Object> proceedFuture(ProceedingJoinPoint joinPoint) {
+        CompletableFuture<Object> future;
+        try {
+            future = (CompletableFuture<Object>) joinPoint.proceed(joinPoint.getArgs());
         } catch (Throwable throwable) {
-            throwable.printStackTrace();
+            future = new CompletableFuture<>();
+            future.completeExceptionally(throwable);
+        }
+        return future == null ? CompletableFuture.completedFuture(null) : future;
+    }
+
+    /**
+     * 异步方法的缓存写回，Redis异常只记录日志，不影响已成功的方法结果
+     */
+    void saveCacheQuietly(ResultCache resultCache, ResultCacheMetadata meta, String cacheKey, Object result, long delta) {
+        try {
+            saveCache(resultCache, meta, cacheKey, result, delta);
+        } catch (RuntimeException e) {
+            logger.warn("{} - save cache failed: {}", meta.getMethodName(), e.toString());
+        }
+    }
+
+    /**
+     * 布隆过滤器判断参数一定不存在时返回true，过滤器未创建时不拦截
+     */
+    boolean rejected(ResultCacheMetadata meta, Object[] args) {
+        if (!meta.hasBloomFilter()) {
+            return false;
         }
-        long expire = 0;
-        if (resultCache.expire() > 0) {
-            expire = resultCache.expire();
-            long[] expireRandomAppend = resultCache.expireRandomAppend();
-            if (expireRandomAppend.length == EXPIRE_RANDOM_LENGTH && expireRandomAppend[0] <= expireRandomAppend[1]) {
-                expire += expireRandomAppend[0] + (long) ((expireRandomAppend[1] - expireRandomAppend[0]) * Math.random());
+        RedisBloomFilter filter = bloomFilters.get(meta.getBloomFilter());
+        if (filter == null) {
+            filter = redisUtil.bloomFilter(meta.getBloomFilter());
+            if (filter == null) {
+                logger.debug("{} - bloom filter {} not found, skip", meta.getMethodName(), meta.getBloomFilter());
+                return false;
             }
+            bloomFilters.putIfAbsent(meta.getBloomFilter(), filter);
         }
+        return !filter.mightContain(meta.bloomElement(args));
+    }
+
+    private Object doSaveCache(ProceedingJoinPoint joinPoint, ResultCache resultCache, ResultCacheMetadata meta, String cacheKey) {
+        Object result = null;
+        long start = System.currentTimeMillis();
+        try {
+            result = joinPoint.proceed(joinPoint.getArgs());
+        } catch (Throwable throwable) {
+            throwable.printStackTrace();
+        }
+        return saveCache(resultCache, meta, cacheKey, result, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param result 方法返回值
+     * @param delta  方法执行耗时ms
+     * @return 写入的值（null已被替换为nullSave）
+     */
+    Object saveCache(ResultCache resultCache, ResultCacheMetadata meta, String cacheKey, Object result, long delta) {
+        meta.getMeters().load(delta);
+        long now = System.currentTimeMillis();
+        long expire = meta.nextExpire();
         result = (result == null ? resultCache.nullSave() : result);
+        Object value = result;
+        if (resultCache.softExpire() > 0 || resultCache.earlyRecompute()) {
+            value = new CacheEntry(result,
+                    resultCache.softExpire() > 0 ? now + resultCache.softExpire() : 0,
+                    expire > 0 ? now + expire : 0,
+                    delta);
+        }
         if (expire > 0) {
-            redisUtil.set(cacheKey, result, expire, TimeUnit.MILLISECONDS);
+            redisUtil.set(cacheKey, value, expire, TimeUnit.MILLISECONDS);
         } else {
-            redisUtil.set(cacheKey, result);
+            redisUtil.set(cacheKey, value);
+        }
+        if (resultCache.localCache()) {
+            // RedisUtil.set已通知其他实例失效旧的本地副本
+            nearCache.put(cacheKey, value, localExpire(resultCache, expire), resultCache.localCopy());
         }
         return result;
     }
 
-    private Object toCallback(String methodName, Object target, String callbackMethod, Object result) {
-        logger.info(methodName + " - call " + callbackMethod + "(java.lang.Object);");
+    /**
+     * 在后台线程中刷新已软过期的缓存，本实例内同一个键只提交一次，集群内通过分布式锁选出唯一的刷新者
+     */
+    private void refreshAsync(ProceedingJoinPoint joinPoint, ResultCache resultCache, ResultCacheMetadata meta, String cacheKey) {
+        if (!refreshing.add(cacheKey)) {
+            return;
+        }
         try {
-            Method method = target.getClass().getDeclaredMethod(callbackMethod, Object.class);
-            result = method.invoke(target, result);
-            logger.info(methodName + " - callback finished");
-        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-            logger.warn(methodName + " - callback failed: ");
-            e.printStackTrace();
+            refreshExecutor.execute(() -> {
+                try {
+                    if (!redisUtil.lock(cacheKey, resultCache.maxLockTime(), TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                    try {
+                        // 拿到锁时其他实例可能已经刷新完成
+                        Object current = redisUtil.get(cacheKey);
+                        if (current instanceof CacheEntry && !((CacheEntry) current).isSoftExpired(System.currentTimeMillis())) {
+                            return;
+                        }
+                        doSaveCache(joinPoint, resultCache, meta, cacheKey);
+                        notifier.publish(READY_TOPIC, cacheKey);
+                        logger.info("{} - refresh cache in background", meta.getMethodName());
+                    } finally {
+                        redisUtil.unlock(cacheKey);
+                    }
+                } finally {
+                    refreshing.remove(cacheKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(cacheKey);
+            logger.warn("{} - refresh queue is full, keep stale cache", meta.getMethodName());
+        }
+    }
+
+    /**
+     * 取出包装中的缓存值
+     */
+    static Object unwrap(Object cache) {
+        return cache instanceof CacheEntry ? ((CacheEntry) cache).getValue() : cache;
+    }
+
+    /**
+     * 在一次往返中获取缓存值及其剩余过期时间，并写入本地缓存
+     */
+    private Object getAndCacheLocal(String cacheKey, ResultCache resultCache) {
+        byte[] rawKey = cacheKey.getBytes(StandardCharsets.UTF_8);
+        List<Object> results = redisUtil.redisTemplate().executePipelined((RedisCallback<Object>) connection -> {
+            connection.get(rawKey);
+            connection.pTtl(rawKey);
+            return null;
+        });
+        Object value = results.get(0);
+        if (value != null) {
+            Long ttl = (Long) results.get(1);
+            nearCache.put(cacheKey, value, localExpire(resultCache, ttl == null ? 0 : ttl), resultCache.localCopy());
+        }
+        return value;
+    }
+
+    /**
+     * 计算本地缓存过期时间，不超过Redis剩余过期时间
+     *
+     * @param redisExpire Redis剩余过期时间ms，小于等于0表示永不过期
+     */
+    private long localExpire(ResultCache resultCache, long redisExpire) {
+        long expire = resultCache.localExpire() > 0 ? resultCache.localExpire() : nearCache.getDefaultExpire();
+        if (redisExpire > 0) {
+            expire = expire > 0 ? Math.min(expire, redisExpire) : redisExpire;
+        }
+        return expire;
+    }
+
+    /**
+     * 删除缓存，RedisUtil.delete会同时失效所有实例的本地缓存
+     *
+     * @param cacheKey 缓存键
+     * @return 是否成功
+     */
+    public Boolean evict(String cacheKey) {
+        return redisUtil.delete(cacheKey);
+    }
+
+    /**
+     * 两级缓存命中统计
+     *
+     * @return CacheStatistics
+     */
+    public CacheStatistics statistics() {
+        return nearCache.statistics();
+    }
+
+    private Object toCallback(ResultCacheMetadata meta, Object target, Object result) {
+        String methodName = meta.getMethodName();
+        logger.debug("{} - call {}(java.lang.Object);", methodName, meta.getCallbackMethod());
+        MethodHandle callback = meta.callback(target);
+        if (callback == null) {
+            logger.warn("{} - callback failed: no such method {}(java.lang.Object)", methodName, meta.getCallbackMethod());
+            return result;
+        }
+        try {
+            result = callback.invoke(target, result);
+            logger.debug("{} - callback finished", methodName);
+        } catch (Throwable e) {
+            logger.warn("{} - callback failed: ", methodName, e);
         }
         return result;
     }
+
+    /**
+     * 以加载结果序列化后的字节完成加载，已完成时忽略
+     */
+    private void completeFlight(Flight flight, Object result) {
+        if (flight.isDone()) {
+            return;
+        }
+        try {
+            flight.complete(result == null ? null : serializer.serialize(result));
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 正在进行中的一次缓存加载，以序列化后的字节完成，等待者各自反序列化
+     */
+    private static final class Flight extends CompletableFuture<byte[]> {
+        private final Thread thread = Thread.currentThread();
+    }
 }
@@ -0,0 +1,227 @@
+package com.cyitce.util.redis.annotation;
+
+import com.cyitce.util.redis.key.KeyGenerator;
+import com.cyitce.util.redis.metrics.ResultCacheMeters;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @version 1.0
+ * @see ResultCacheImpl
+ * 被ResultCache注解的方法的预编译元数据，每个方法只解析一次，避免每次调用时重复拼接方法名、反射查找回调方法等。
+ */
+public class ResultCacheMetadata {
+
+    private static final boolean REACTOR_PRESENT = ClassUtils.isPresent("reactor.core.publisher.Mono", ResultCacheMetadata.class.getClassLoader());
+
+    private final String methodName;
+    private final String keyPrefix;
+    private final int[] params;
+    private final KeyGenerator keyGenerator;
+    private final Class<?> returnType;
+    private final Class<?> valueType;
+    private final long expire;
+    private final long expireRandomMin;
+    private final long expireRandomRange;
+    private final String callbackMethod;
+    private final Class<?> targetClass;
+    private final MethodHandle callback;
+    private final AsyncType asyncType;
+    private final String bloomFilter;
+    private final ResultCacheMeters meters;
+
+    public ResultCacheMetadata(Method method, Class<?> targetClass, ResultCache resultCache, KeyGenerator keyGenerator) {
+        this(method, targetClass, resultCache, keyGenerator, null);
+    }
+
+    public ResultCacheMetadata(Method method, Class<?> targetClass, ResultCache resultCache, KeyGenerator keyGenerator,
+                               ResultCacheMeters meters) {
+        this.methodName = "ResultCache:" + method.getDeclaringClass().getName() + "." + method.getName();
+        this.keyPrefix = resultCache.key().isEmpty() ? methodName : resultCache.key();
+        this.params = resultCache.params().clone();
+        this.keyGenerator = keyGenerator;
+        this.returnType = ClassUtils.resolvePrimitiveIfNecessary(method.getReturnType());
+        this.asyncType = AsyncType.of(method.getReturnType());
+        // 异步方法缓存的是完成后的值，Flux缓存的是元素列表，不校验
+        this.valueType = asyncType == AsyncType.FUTURE || asyncType == AsyncType.MONO
+                ? ResolvableType.forMethodReturnType(method).getGeneric(0).resolve() : null;
+        this.expire = resultCache.expire();
+        long[] expireRandomAppend = resultCache.expireRandomAppend();
+        if (expire > 0 && expireRandomAppend.length == ResultCacheImpl.EXPIRE_RANDOM_LENGTH && expireRandomAppend[0] <= expireRandomAppend[1]) {
+            this.expireRandomMin = expireRandomAppend[0];
+            this.expireRandomRange = expireRandomAppend[1] - expireRandomAppend[0];
+        } else {
+            this.expireRandomMin = 0;
+            this.expireRandomRange = 0;
+        }
+        this.callbackMethod = resultCache.callbackMethod();
+        this.targetClass = targetClass;
+        this.callback = callbackMethod.isEmpty() ? null : resolveCallback(targetClass, callbackMethod);
+        this.bloomFilter = resultCache.bloomFilter();
+        this.meters = meters == null ? ResultCacheMeters.NONE : meters;
+    }
+
+    /**
+     * 查找回调函数 Object fun(Object o)
+     *
+     * @return MethodHandle，不存在时返回null
+     */
+    static MethodHandle resolveCallback(Class<?> targetClass, String callbackMethod) {
+        try {
+            Method method = targetClass.getDeclaredMethod(callbackMethod, Object.class);
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 生成缓存键：前缀:参数1:参数2:...
+     *
+     * @param args 方法参数
+     * @return 缓存键
+     */
+    public String buildKey(Object[] args) {
+        return keyGenerator.generate(keyPrefix, args, params);
+    }
+
+    /**
+     * 生成布隆过滤器元素：参数1:参数2:...
+     *
+     * @param args 方法参数
+     * @return 元素
+     */
+    public String bloomElement(Object[] args) {
+        if (params.length == 1) {
+            return String.valueOf(args[params[0]]);
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < params.length; i++) {
+            if (i > 0) {
+                builder.append(':');
+            }
+            builder.append(args[params[i]]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 计算本次写入的过期时间，包含随机追加时间
+     *
+     * @return 过期时间ms，小于等于0表示永不过期
+     */
+    public long nextExpire() {
+        if (expire <= 0) {
+            return 0;
+        }
+        if (expireRandomRange <= 0) {
+            return expire + expireRandomMin;
+        }
+        return expire + expireRandomMin + ThreadLocalRandom.current().nextLong(expireRandomRange);
+    }
+
+    /**
+     * 获取回调函数，目标类与解析时一致时直接使用预解析结果
+     *
+     * @param target 目标对象
+     * @return MethodHandle，不存在时返回null
+     */
+    public MethodHandle callback(Object target) {
+        if (target.getClass() == targetClass) {
+            return callback;
+        }
+        return resolveCallback(target.getClass(), callbackMethod);
+    }
+
+    /**
+     * 结果是否与方法返回类型一致
+     *
+     * @param result 结果
+     * @return boolean
+     */
+    public boolean isReturnType(Object result) {
+        return returnType == result.getClass();
+    }
+
+    /**
+     * 异步方法完成后的值是否与泛型参数类型一致，无法解析泛型时不校验
+     *
+     * @param value 值
+     * @return boolean
+     */
+    public boolean isValueType(Object value) {
+        return valueType == null || valueType.isInstance(value);
+    }
+
+    public AsyncType getAsyncType() {
+        return asyncType;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public String getCallbackMethod() {
+        return callbackMethod;
+    }
+
+    public boolean hasCallback() {
+        return !callbackMethod.isEmpty();
+    }
+
+    public String getBloomFilter() {
+        return bloomFilter;
+    }
+
+    public boolean hasBloomFilter() {
+        return !bloomFilter.isEmpty();
+    }
+
+    public ResultCacheMeters getMeters() {
+        return meters;
+    }
+
+    /**
+     * 方法的异步返回类型，异步方法缓存的是完成后的值而不是包装对象
+     */
+    public enum AsyncType {
+        /**
+         * 同步方法
+         */
+        NONE,
+        /**
+         * CompletableFuture
+         */
+        FUTURE,
+        /**
+         * reactor.core.publisher.Mono
+         */
+        MONO,
+        /**
+         * reactor.core.publisher.Flux，缓存收集后的元素列表
+         */
+        FLUX;
+
+        static AsyncType of(Class<?> returnType) {
+            if (CompletableFuture.class == returnType) {
+                return FUTURE;
+            }
+            if (REACTOR_PRESENT) {
+                if ("reactor.core.publisher.Mono".equals(returnType.getName())) {
+                    return MONO;
+                }
+                if ("reactor.core.publisher.Flux".equals(returnType.getName())) {
+                    return FLUX;
+                }
+            }
+            return NONE;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.cyitce.util.redis.bloom;
+
+import com.cyitce.util.redis.key.Murmur3;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * @version 1.0
+ * 基于Redis Bitmap的布隆过滤器。k个位置由客户端通过MurmurHash3双重哈希计算，所有SETBIT/GETBIT通过管道一次往返完成。
+ * 位数组大小与哈希函数个数保存在 name:meta 中，各实例以首次创建时的参数为准；每次读写都在同一往返中校验参数，
+ * 删除后以不同参数重建时自动刷新。参数或位数组不存在（未初始化、已删除或被淘汰）时不判定元素一定不存在。
+ * 元素统一按 String.valueOf(element) 的UTF-8字节计算哈希。
+ */
+public class RedisBloomFilter {
+
+    public static final String META = ":meta";
+    /**
+     * Redis字符串最大512MB
+     */
+    public static final long MAX_BIT_SIZE = 1L << 32;
+    private static final byte[] CONFIG_FIELD = "config".getBytes(StandardCharsets.UTF_8);
+    private static final int BATCH_SIZE = 1000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String name;
+    private final byte[] rawKey;
+    private final byte[] metaKey;
+    private volatile Sizing sizing;
+
+    private RedisBloomFilter(RedisTemplate<String, Object> redisTemplate, String name, String config) {
+        this.redisTemplate = redisTemplate;
+        this.name = name;
+        this.rawKey = name.getBytes(StandardCharsets.UTF_8);
+        this.metaKey = (name + META).getBytes(StandardCharsets.UTF_8);
+        this.sizing = new Sizing(config);
+    }
+
+    /**
+     * 创建布隆过滤器，已存在时沿用已保存的参数
+     *
+     * @param redisTemplate      RedisTemplate
+     * @param name               键
+     * @param expectedInsertions 预计插入的元素个数
+     * @param fpp                期望误判率，(0, 1)
+     * @return RedisBloomFilter
+     */
+    public static RedisBloomFilter create(RedisTemplate<String, Object> redisTemplate, String name, long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive: " + expectedInsertions);
+        }
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("fpp must be in (0, 1): " + fpp);
+        }
+        long bitSize = optimalNumOfBits(expectedInsertions, fpp);
+        int hashFunctions = optimalNumOfHashFunctions(expectedInsertions, bitSize);
+        String config = bitSize + ":" + hashFunctions;
+        byte[] metaKey = (name + META).getBytes(StandardCharsets.UTF_8);
+        Boolean created = redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                connection.hSetNX(metaKey, CONFIG_FIELD, config.getBytes(StandardCharsets.UTF_8)));
+        if (Boolean.TRUE.equals(created)) {
+            return new RedisBloomFilter(redisTemplate, name, config);
+        }
+        return load(redisTemplate, name);
+    }
+
+    /**
+     * 加载已创建的布隆过滤器
+     *
+     * @param redisTemplate RedisTemplate
+     * @param name          键
+     * @return RedisBloomFilter，不存在时返回null
+     */
+    public static RedisBloomFilter load(RedisTemplate<String, Object> redisTemplate, String name) {
+        byte[] metaKey = (name + META).getBytes(StandardCharsets.UTF_8);
+        byte[] config = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.hGet(metaKey, CONFIG_FIELD));
+        if (config == null) {
+            return null;
+        }
+        return new RedisBloomFilter(redisTemplate, name, new String(config, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 位数组大小 m = -n·ln(p) / (ln2)²，不超过Redis字符串上限
+     */
+    static long optimalNumOfBits(long expectedInsertions, double fpp) {
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        return Math.max(1, Math.min(bits, MAX_BIT_SIZE));
+    }
+
+    /**
+     * 哈希函数个数 k = m/n·ln2
+     */
+    static int optimalNumOfHashFunctions(long expectedInsertions, long bitSize) {
+        return Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * 计算元素的k个位置：gi(x) = h1(x) + i·h2(x)
+     */
+    long[] positions(Object element) {
+        return sizing.positions(element);
+    }
+
+    /**
+     * 添加元素
+     *
+     * @param element 元素
+     * @return 是否为新元素（至少有一位由0变为1）
+     */
+    public boolean put(Object element) {
+        Sizing current = sizing;
+        long[] positions = current.positions(element);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.hGet(metaKey, CONFIG_FIELD);
+            for (long position : positions) {
+                connection.setBit(rawKey, position, true);
+            }
+            return null;
+        }, StringRedisSerializer.UTF_8);
+        if (refreshed(current, results.get(0))) {
+            // 参数已变化，按新参数重新写入；旧参数写入的位只会增加误判率
+            return put(element);
+        }
+        for (Object old : results.subList(1, results.size())) {
+            if (Boolean.FALSE.equals(old)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断元素是否可能存在
+     *
+     * @param element 元素
+     * @return false表示一定不存在，true表示可能存在
+     */
+    public boolean mightContain(Object element) {
+        Sizing current = sizing;
+        long[] positions = current.positions(element);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.hGet(metaKey, CONFIG_FIELD);
+            connection.exists(rawKey);
+            for (long position : positions) {
+                connection.getBit(rawKey, position);
+            }
+            return null;
+        }, StringRedisSerializer.UTF_8);
+        Object config = results.get(0);
+        if (config == null || !Boolean.TRUE.equals(results.get(1))) {
+            // 参数或位数组不存在：未初始化、已删除或被淘汰，无法判定
+            return true;
+        }
+        if (refreshed(current, config)) {
+            return mightContain(element);
+        }
+        for (Object bit : results.subList(2, results.size())) {
+            if (!Boolean.TRUE.equals(bit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Redis中的参数与本地不一致时刷新本地参数
+     *
+     * @return 是否已刷新
+     */
+    private boolean refreshed(Sizing current, Object config) {
+        if (config == null || current.config.equals(config)) {
+            return false;
+        }
+        sizing = new Sizing((String) config);
+        return true;
+    }
+
+    /**
+     * 批量添加元素，每1000个元素一次管道往返
+     *
+     * @param elements 元素
+     * @return 添加的元素个数
+     */
+    public long putAll(Iterable<?> elements) {
+        return putAll(elements.iterator());
+    }
+
+    /**
+     * 批量添加元素，每1000个元素一次管道往返
+     *
+     * @param elements 元素流
+     * @return 添加的元素个数
+     */
+    public long putAll(Stream<?> elements) {
+        try (Stream<?> stream = elements) {
+            return putAll(stream.iterator());
+        }
+    }
+
+    private long putAll(Iterator<?> iterator) {
+        byte[] config = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.hGet(metaKey, CONFIG_FIELD));
+        if (config != null) {
+            refreshed(sizing, new String(config, StandardCharsets.UTF_8));
+        }
+        long count = 0;
+        List<long[]> batch = new ArrayList<>(BATCH_SIZE);
+        while (iterator.hasNext()) {
+            batch.add(positions(iterator.next()));
+            if (batch.size() == BATCH_SIZE || !iterator.hasNext()) {
+                List<long[]> current = batch;
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (long[] positions : current) {
+                        for (long position : positions) {
+                            connection.setBit(rawKey, position, true);
+                        }
+                    }
+                    return null;
+                });
+                count += current.size();
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 删除布隆过滤器及其参数
+     */
+    public void delete() {
+        redisTemplate.delete(name);
+        redisTemplate.delete(name + META);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getBitSize() {
+        return sizing.bitSize;
+    }
+
+    public int getHashFunctions() {
+        return sizing.hashFunctions;
+    }
+
+    /**
+     * 位数组大小与哈希函数个数，格式为 m:k
+     */
+    private static final class Sizing {
+        private final String config;
+        private final long bitSize;
+        private final int hashFunctions;
+
+        private Sizing(String config) {
+            String[] parts = config.split(":");
+            this.config = config;
+            this.bitSize = Long.parseLong(parts[0]);
+            this.hashFunctions = Integer.parseInt(parts[1]);
+        }
+
+        /**
+         * 计算元素的k个位置：gi(x) = h1(x) + i·h2(x)
+         */
+        private long[] positions(Object element) {
+            long[] hash = Murmur3.hash128(String.valueOf(element).getBytes(StandardCharsets.UTF_8), 0);
+            long[] positions = new long[hashFunctions];
+            long combined = hash[0];
+            for (int i = 0; i < hashFunctions; i++) {
+                positions[i] = (combined & Long.MAX_VALUE) % bitSize;
+                combined += hash[1];
+            }
+            return positions;
+        }
+    }
+}
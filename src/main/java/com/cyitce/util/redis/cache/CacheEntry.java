@@ -0,0 +1,89 @@
+package com.cyitce.util.redis.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @version 1.0
+ * 带有软过期时间的缓存值包装，软过期后仍可返回旧值，同时由一个调用方在后台刷新。
+ * 同时记录计算耗时与硬过期时间，用于概率性提前重算（XFetch）。
+ * 该类不能声明为final，否则Jackson不会写入类型信息。
+ */
+public class CacheEntry {
+
+    private Object value;
+    private long softExpireAt;
+    private long expireAt;
+    private long delta;
+
+    public CacheEntry() {
+    }
+
+    public CacheEntry(Object value, long softExpireAt) {
+        this.value = value;
+        this.softExpireAt = softExpireAt;
+    }
+
+    public CacheEntry(Object value, long softExpireAt, long expireAt, long delta) {
+        this.value = value;
+        this.softExpireAt = softExpireAt;
+        this.expireAt = expireAt;
+        this.delta = delta;
+    }
+
+    /**
+     * 是否已软过期
+     *
+     * @param now 当前时间戳ms
+     * @return boolean
+     */
+    public boolean isSoftExpired(long now) {
+        return softExpireAt > 0 && now >= softExpireAt;
+    }
+
+    /**
+     * XFetch：越接近硬过期时间，越有可能需要提前重算，重算耗时越长越早开始。
+     * 满足 now - delta * beta * ln(rand()) >= expireAt 时返回true
+     *
+     * @param now  当前时间戳ms
+     * @param beta 大于1时更倾向于提前重算，小于1时更倾向于延后
+     * @return boolean
+     */
+    public boolean shouldRecomputeEarly(long now, double beta) {
+        if (expireAt <= 0 || delta <= 0) {
+            return false;
+        }
+        return now - delta * beta * Math.log(1 - ThreadLocalRandom.current().nextDouble()) >= expireAt;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public void setValue(Object value) {
+        this.value = value;
+    }
+
+    public long getSoftExpireAt() {
+        return softExpireAt;
+    }
+
+    public void setSoftExpireAt(long softExpireAt) {
+        this.softExpireAt = softExpireAt;
+    }
+
+    public long getExpireAt() {
+        return expireAt;
+    }
+
+    public void setExpireAt(long expireAt) {
+        this.expireAt = expireAt;
+    }
+
+    public long getDelta() {
+        return delta;
+    }
+
+    public void setDelta(long delta) {
+        this.delta = delta;
+    }
+}
@@ -0,0 +1,59 @@
+package com.cyitce.util.redis.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @version 1.0
+ * 两级缓存命中统计，L1为本地近端缓存，L2为Redis
+ */
+public class CacheStatistics {
+
+    private final LongAdder l1Hit = new LongAdder();
+    private final LongAdder l1Miss = new LongAdder();
+    private final LongAdder l2Hit = new LongAdder();
+    private final LongAdder l2Miss = new LongAdder();
+
+    public void recordL1(boolean hit) {
+        (hit ? l1Hit : l1Miss).increment();
+    }
+
+    public void recordL2(boolean hit) {
+        (hit ? l2Hit : l2Miss).increment();
+    }
+
+    public long getL1Hit() {
+        return l1Hit.sum();
+    }
+
+    public long getL1Miss() {
+        return l1Miss.sum();
+    }
+
+    public long getL2Hit() {
+        return l2Hit.sum();
+    }
+
+    public long getL2Miss() {
+        return l2Miss.sum();
+    }
+
+    /**
+     * 清空统计
+     */
+    public void reset() {
+        l1Hit.reset();
+        l1Miss.reset();
+        l2Hit.reset();
+        l2Miss.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{" +
+                "l1Hit=" + getL1Hit() +
+                ", l1Miss=" + getL1Miss() +
+                ", l2Hit=" + getL2Hit() +
+                ", l2Miss=" + getL2Miss() +
+                '}';
+    }
+}
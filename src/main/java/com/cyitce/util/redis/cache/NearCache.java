@@ -0,0 +1,177 @@
+package com.cyitce.util.redis.cache;
+
+import com.cyitce.util.redis.configs.RedisUtilProperties;
+import com.cyitce.util.redis.notify.RedisNotifier;
+import com.cyitce.util.redis.scan.GlobPattern;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * @version 1.0
+ * 进程内近端缓存（L1），位于Redis之前。基于Caffeine(W-TinyLFU淘汰)，每个条目拥有独立过期时间，
+ * 键被重写或删除时通过Redis Pub/Sub通知其他实例失效本地副本，通过RedisUtil写入、删除键或按模式删除时同样会通知（多个键合并为一条通知）。
+ * 条目默认保存对象本身，命中时直接返回；写入时指定copy的条目以RedisTemplate的Value序列化结果保存，每次命中都反序列化出新的对象。
+ */
+@Component
+public class NearCache {
+
+    public static final String INVALIDATE_TOPIC = "nearCache:invalidate";
+    public static final String INVALIDATE_PATTERN_TOPIC = "nearCache:invalidatePattern";
+    /**
+     * 一条失效通知中多个键的分隔符
+     */
+    private static final String KEY_SEPARATOR = "\n";
+    private final Cache<String, Entry> cache;
+    private final CacheStatistics statistics = new CacheStatistics();
+    private final RedisNotifier notifier;
+    private final long defaultExpire;
+    private final RedisSerializer<Object> serializer;
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public NearCache(RedisUtilProperties properties, RedisNotifier notifier, RedisTemplate<String, Object> redisTemplate) {
+        this.notifier = notifier;
+        this.serializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        this.defaultExpire = properties.getNearCache().getDefaultExpire();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getNearCache().getMaxSize())
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        notifier.subscribe(INVALIDATE_TOPIC, message -> cache.invalidateAll(Arrays.asList(message.split(KEY_SEPARATOR))), false);
+        notifier.subscribe(INVALIDATE_PATTERN_TOPIC, this::invalidateLocalPattern, false);
+    }
+
+    /**
+     * 获取本地缓存
+     *
+     * @param key 键
+     * @return 值，写入时指定copy的返回副本，不存在时返回null
+     */
+    public Object get(String key) {
+        Entry entry = cache.getIfPresent(key);
+        statistics.recordL1(entry != null);
+        if (entry == null) {
+            return null;
+        }
+        return entry.serialized ? serializer.deserialize((byte[]) entry.value) : entry.value;
+    }
+
+    /**
+     * 写入本地缓存
+     *
+     * @param key    键
+     * @param value  值
+     * @param expire 过期时间ms，小于等于0时使用默认过期时间
+     * @param copy   是否保存序列化后的字节，每次命中返回新的对象
+     */
+    public void put(String key, Object value, long expire, boolean copy) {
+        if (value == null) {
+            return;
+        }
+        long ttl = expire > 0 ? expire : defaultExpire;
+        if (ttl > 0) {
+            cache.put(key, new Entry(copy ? serializer.serialize(value) : value, copy, TimeUnit.MILLISECONDS.toNanos(ttl)));
+        }
+    }
+
+    /**
+     * 失效本实例及其他实例的本地缓存
+     *
+     * @param key 键
+     */
+    public void invalidate(String key) {
+        cache.invalidate(key);
+        notifier.publish(INVALIDATE_TOPIC, key);
+    }
+
+    /**
+     * 失效本实例及其他实例中多个键的本地缓存，合并为一条通知
+     *
+     * @param keys 键
+     */
+    public void invalidateAll(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        cache.invalidateAll(keys);
+        notifier.publish(INVALIDATE_TOPIC, String.join(KEY_SEPARATOR, keys));
+    }
+
+    /**
+     * 按Redis glob模式删除键时调用，失效本实例及其他实例中匹配的本地缓存
+     *
+     * @param pattern 匹配字符
+     */
+    public void invalidatePattern(String pattern) {
+        invalidateLocalPattern(pattern);
+        notifier.publish(INVALIDATE_PATTERN_TOPIC, pattern);
+    }
+
+    private void invalidateLocalPattern(String pattern) {
+        Pattern regex = GlobPattern.compile(pattern);
+        cache.asMap().keySet().removeIf(key -> regex.matcher(key).matches());
+    }
+
+    /**
+     * 仅失效本实例的本地缓存
+     *
+     * @param key 键
+     */
+    public void invalidateLocal(String key) {
+        cache.invalidate(key);
+    }
+
+    /**
+     * 当前本地缓存条目数（近似值）
+     *
+     * @return long
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public long getDefaultExpire() {
+        return defaultExpire;
+    }
+
+    public CacheStatistics statistics() {
+        return statistics;
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final boolean serialized;
+        private final long ttlNanos;
+
+        private Entry(Object value, boolean serialized, long ttlNanos) {
+            this.value = value;
+            this.serialized = serialized;
+            this.ttlNanos = ttlNanos;
+        }
+    }
+}
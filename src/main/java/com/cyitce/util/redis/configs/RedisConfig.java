@@ -1,15 +1,14 @@
 package com.cyitce.util.redis.configs;
 
-import com.fasterxml.jackson.annotation.JsonAutoDetect;
-import com.fasterxml.jackson.annotation.PropertyAccessor;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.cyitce.util.redis.serializer.CompressRedisSerializer;
+import com.cyitce.util.redis.serializer.FormatRedisSerializer;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
@@ -18,33 +17,49 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
  * @date 2020/11/11 16:30
  */
 @Configuration
+@EnableConfigurationProperties(RedisUtilProperties.class)
 public class RedisConfig {
     /**
      * redisTemplate 序列化使用的jdkSerializer, 存储二进制字节码, 所以自定义序列化类
      */
     @Bean
     @ConditionalOnMissingBean(name = "redisTemplate")
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory, CompressRedisSerializer valueSerializer) {
         RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
         redisTemplate.setConnectionFactory(redisConnectionFactory);
 
-        // 使用Jackson2JsonRedisSerialize 替换默认序列化
-        Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer<>(Object.class);
-
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
-        jackson2JsonRedisSerializer.setObjectMapper(objectMapper);
         // String序列化
         StringRedisSerializer stringRedisSerializer = new StringRedisSerializer();
 
         // 设置value的序列化规则和 key的序列化规则
         redisTemplate.setKeySerializer(stringRedisSerializer);
-        redisTemplate.setValueSerializer(jackson2JsonRedisSerializer);
+        redisTemplate.setValueSerializer(valueSerializer);
         redisTemplate.setHashKeySerializer(stringRedisSerializer);
-        redisTemplate.setHashValueSerializer(jackson2JsonRedisSerializer);
+        redisTemplate.setHashValueSerializer(valueSerializer);
         redisTemplate.afterPropertiesSet();
         return redisTemplate;
     }
 
+    /**
+     * Value序列化器：按配置的格式序列化，读取时根据首字节自动识别JSON/Smile/Kryo；超过阈值的数据压缩后存储
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CompressRedisSerializer redisValueSerializer(RedisUtilProperties properties) {
+        RedisUtilProperties.Compression compression = properties.getCompression();
+        return new CompressRedisSerializer(new FormatRedisSerializer(properties.getSerializer().getFormat()),
+                compression.isEnabled(), compression.getThreshold(), compression.getCodec());
+    }
+
+    /**
+     * 消息监听容器，用于接收本地缓存失效等跨实例通知
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
+    }
+
 }
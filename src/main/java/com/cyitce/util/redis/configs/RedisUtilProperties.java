@@ -0,0 +1,459 @@
+package com.cyitce.util.redis.configs;
+
+import com.cyitce.util.redis.serializer.CompressionCodec;
+import com.cyitce.util.redis.serializer.SerializerFormat;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @version 1.0
+ * Redis-Util 配置项，前缀为 redis-util
+ */
+@ConfigurationProperties(prefix = "redis-util")
+public class RedisUtilProperties {
+
+    /**
+     * 本地近端缓存（L1）配置
+     */
+    private final NearCache nearCache = new NearCache();
+
+    /**
+     * ResultCache注解相关配置
+     */
+    private final ResultCache resultCache = new ResultCache();
+
+    /**
+     * 缓存键生成配置
+     */
+    private final Key key = new Key();
+
+    /**
+     * Value序列化配置
+     */
+    private final Serializer serializer = new Serializer();
+
+    /**
+     * Value压缩配置
+     */
+    private final Compression compression = new Compression();
+
+    /**
+     * 批量加载器配置
+     */
+    private final BatchLoader batchLoader = new BatchLoader();
+
+    /**
+     * 分布式锁配置
+     */
+    private final Lock lock = new Lock();
+
+    /**
+     * 指标配置
+     */
+    private final Metrics metrics = new Metrics();
+
+    /**
+     * 热点键探测配置
+     */
+    private final HotKey hotKey = new HotKey();
+
+    public NearCache getNearCache() {
+        return nearCache;
+    }
+
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    public Key getKey() {
+        return key;
+    }
+
+    public Serializer getSerializer() {
+        return serializer;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public BatchLoader getBatchLoader() {
+        return batchLoader;
+    }
+
+    public Lock getLock() {
+        return lock;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public HotKey getHotKey() {
+        return hotKey;
+    }
+
+    public static class NearCache {
+
+        /**
+         * 本地缓存最大条目数
+         */
+        private long maxSize = 10000;
+
+        /**
+         * 未在注解中指定本地过期时间时使用的默认过期时间，单位ms
+         */
+        private long defaultExpire = 5000;
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public long getDefaultExpire() {
+            return defaultExpire;
+        }
+
+        public void setDefaultExpire(long defaultExpire) {
+            this.defaultExpire = defaultExpire;
+        }
+    }
+
+    public static class ResultCache {
+
+        /**
+         * 后台刷新缓存的最大线程数
+         */
+        private int refreshThreads = 4;
+
+        /**
+         * 后台刷新任务队列长度，队列满时丢弃刷新任务，调用方继续使用旧值
+         */
+        private int refreshQueueSize = 256;
+
+        /**
+         * 返回CompletableFuture的方法查找缓存所用的线程数，Mono/Flux使用Schedulers.boundedElastic()
+         */
+        private int asyncThreads = 8;
+
+        /**
+         * 异步查找任务队列长度，队列满时跳过缓存直接执行原方法
+         */
+        private int asyncQueueSize = 1024;
+
+        public int getRefreshThreads() {
+            return refreshThreads;
+        }
+
+        public void setRefreshThreads(int refreshThreads) {
+            this.refreshThreads = refreshThreads;
+        }
+
+        public int getRefreshQueueSize() {
+            return refreshQueueSize;
+        }
+
+        public void setRefreshQueueSize(int refreshQueueSize) {
+            this.refreshQueueSize = refreshQueueSize;
+        }
+
+        public int getAsyncThreads() {
+            return asyncThreads;
+        }
+
+        public void setAsyncThreads(int asyncThreads) {
+            this.asyncThreads = asyncThreads;
+        }
+
+        public int getAsyncQueueSize() {
+            return asyncQueueSize;
+        }
+
+        public void setAsyncQueueSize(int asyncQueueSize) {
+            this.asyncQueueSize = asyncQueueSize;
+        }
+    }
+
+    public static class Key {
+
+        /**
+         * 缓存键最大长度，超过时参数部分整体哈希
+         */
+        private int maxLength = 256;
+
+        /**
+         * 简单类型参数最大长度，超过时该参数哈希
+         */
+        private int maxArgLength = 64;
+
+        public int getMaxLength() {
+            return maxLength;
+        }
+
+        public void setMaxLength(int maxLength) {
+            this.maxLength = maxLength;
+        }
+
+        public int getMaxArgLength() {
+            return maxArgLength;
+        }
+
+        public void setMaxArgLength(int maxArgLength) {
+            this.maxArgLength = maxArgLength;
+        }
+    }
+
+    public static class Serializer {
+
+        /**
+         * 写入时使用的格式：json、smile、kryo，读取时自动识别
+         */
+        private SerializerFormat format = SerializerFormat.JSON;
+
+        public SerializerFormat getFormat() {
+            return format;
+        }
+
+        public void setFormat(SerializerFormat format) {
+            this.format = format;
+        }
+    }
+
+    public static class Compression {
+
+        /**
+         * 是否压缩写入的数据，关闭时仍可读取已压缩的数据
+         */
+        private boolean enabled = false;
+
+        /**
+         * 压缩阈值，序列化后超过该字节数才压缩
+         */
+        private int threshold = 1024;
+
+        /**
+         * 压缩算法：lz4、deflate-fast、deflate-best
+         */
+        private CompressionCodec codec = CompressionCodec.LZ4;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(int threshold) {
+            this.threshold = threshold;
+        }
+
+        public CompressionCodec getCodec() {
+            return codec;
+        }
+
+        public void setCodec(CompressionCodec codec) {
+            this.codec = codec;
+        }
+    }
+
+    public static class BatchLoader {
+
+        /**
+         * 合并窗口，窗口期内发起的get合并为一次MGET，单位μs
+         */
+        private long window = 1000;
+
+        /**
+         * 单次MGET的最大键数，达到时立即发送
+         */
+        private int maxBatchSize = 100;
+
+        public long getWindow() {
+            return window;
+        }
+
+        public void setWindow(long window) {
+            this.window = window;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+    }
+
+    public static class Lock {
+
+        /**
+         * 未指定持有时间的锁的租期，由看门狗每隔租期的1/3自动续期，单位ms
+         */
+        private long watchdogLease = 30000;
+
+        public long getWatchdogLease() {
+            return watchdogLease;
+        }
+
+        public void setWatchdogLease(long watchdogLease) {
+            this.watchdogLease = watchdogLease;
+        }
+    }
+
+    public static class Metrics {
+
+        /**
+         * 是否记录RedisUtil命令与ResultCache方法的指标
+         */
+        private boolean enabled = true;
+
+        /**
+         * 客户端计算并发布的耗时百分位
+         */
+        private double[] percentiles = {0.5, 0.95, 0.99};
+
+        /**
+         * 是否发布百分位直方图，供Prometheus等服务端聚合
+         */
+        private boolean histogram = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double[] getPercentiles() {
+            return percentiles;
+        }
+
+        public void setPercentiles(double[] percentiles) {
+            this.percentiles = percentiles;
+        }
+
+        public boolean isHistogram() {
+            return histogram;
+        }
+
+        public void setHistogram(boolean histogram) {
+            this.histogram = histogram;
+        }
+    }
+
+    public static class HotKey {
+
+        /**
+         * 是否探测热点键
+         */
+        private boolean enabled = true;
+
+        /**
+         * 采样率(0, 1]，只有被采样的访问计入频率统计
+         */
+        private double sampleRate = 0.1;
+
+        /**
+         * 统计窗口，单位ms，每个窗口结束时计数减半
+         */
+        private long window = 1000;
+
+        /**
+         * 每窗口估算访问次数达到该值的键视为热点键
+         */
+        private long threshold = 1000;
+
+        /**
+         * 报告的热点键数量，同时最多跟踪其4倍的热点键
+         */
+        private int topK = 20;
+
+        /**
+         * 频率统计每行的计数器个数，越大误差越小
+         */
+        private int sketchWidth = 4096;
+
+        /**
+         * 是否将热点键的值提升到本地缓存
+         */
+        private boolean promote = false;
+
+        /**
+         * 提升到本地的热点键的过期时间，单位ms，也是其他途径修改后本地副本的最大延迟
+         */
+        private long promoteExpire = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public long getWindow() {
+            return window;
+        }
+
+        public void setWindow(long window) {
+            this.window = window;
+        }
+
+        public long getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(long threshold) {
+            this.threshold = threshold;
+        }
+
+        public int getTopK() {
+            return topK;
+        }
+
+        public void setTopK(int topK) {
+            this.topK = topK;
+        }
+
+        public int getSketchWidth() {
+            return sketchWidth;
+        }
+
+        public void setSketchWidth(int sketchWidth) {
+            this.sketchWidth = sketchWidth;
+        }
+
+        public boolean isPromote() {
+            return promote;
+        }
+
+        public void setPromote(boolean promote) {
+            this.promote = promote;
+        }
+
+        public long getPromoteExpire() {
+            return promoteExpire;
+        }
+
+        public void setPromoteExpire(long promoteExpire) {
+            this.promoteExpire = promoteExpire;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.cyitce.util.redis.hotkey;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * @version 1.0
+ * 线程安全的Count-Min Sketch，用固定内存估算键的访问次数（只会高估不会低估）。
+ * 每行使用不同的种子对键的哈希值再散列，估算值取各行计数的最小值；调用decay()将所有计数减半，使旧的访问逐渐失去权重。
+ */
+public class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x97cb3127, 0xb1a4c5d3, 0x3a8f05c5, 0x6e4a1f27};
+    private final AtomicIntegerArray table;
+    private final int mask;
+
+    /**
+     * @param width 每行的计数器个数，向上取整为2的幂
+     */
+    public FrequencySketch(int width) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("width must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(width - 1, 1)) << 1;
+        this.mask = size - 1;
+        this.table = new AtomicIntegerArray(DEPTH * size);
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param key 键
+     * @return 记录后的估算次数
+     */
+    public int increment(String key) {
+        int hash = spread(key.hashCode());
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            int index = index(hash, i);
+            int count = table.get(index);
+            // 达到上限后不再累加，避免溢出
+            if (count < Integer.MAX_VALUE) {
+                count = table.incrementAndGet(index);
+            }
+            min = Math.min(min, count);
+        }
+        return min;
+    }
+
+    /**
+     * 估算访问次数
+     *
+     * @param key 键
+     * @return 估算次数
+     */
+    public int estimate(String key) {
+        int hash = spread(key.hashCode());
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            min = Math.min(min, table.get(index(hash, i)));
+        }
+        return min;
+    }
+
+    /**
+     * 所有计数减半，与并发的increment之间不保证原子性，只影响估算精度
+     */
+    public void decay() {
+        for (int i = 0; i < table.length(); i++) {
+            table.set(i, table.get(i) >>> 1);
+        }
+    }
+
+    private int index(int hash, int row) {
+        int h = spread(hash * SEEDS[row]);
+        return row * (mask + 1) + (h & mask);
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+}
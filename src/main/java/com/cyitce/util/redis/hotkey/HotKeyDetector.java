@@ -0,0 +1,289 @@
+package com.cyitce.util.redis.hotkey;
+
+import com.cyitce.util.redis.configs.RedisUtilProperties;
+import com.cyitce.util.redis.notify.RedisNotifier;
+import com.cyitce.util.redis.scan.GlobPattern;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * @version 1.0
+ * 热点键探测。按采样率把经过RedisUtil.get与ResultCache查找的键记入FrequencySketch，计数每个窗口减半，
+ * 估算访问量超过阈值的键被视为热点键，可通过topK()查看。
+ * 开启promote后，热点键的值会被复制到一个短过期时间的本地缓存，期间的读取不再访问Redis，避免单个分片被热点键压垮；
+ * 本地副本以RedisTemplate的Value序列化结果保存，每次读取都反序列化出新的对象，调用方修改返回值不会影响其他调用方；
+ * 开启promote后，通过RedisUtil或RedisBatch修改或删除任意键都会通知所有实例失效本地副本（多个键合并为一条通知），
+ * 其他途径的修改最多在promote-expire后可见。
+ */
+@Component
+public class HotKeyDetector implements DisposableBean {
+
+    public static final String INVALIDATE_TOPIC = "hotKey:invalidate";
+    public static final String INVALIDATE_PATTERN_TOPIC = "hotKey:invalidatePattern";
+    /**
+     * 一条失效通知中多个键的分隔符
+     */
+    private static final String KEY_SEPARATOR = "\n";
+    private final Logger logger = LoggerFactory.getLogger(HotKeyDetector.class);
+    private final FrequencySketch sketch;
+    private final Map<String, Integer> hotKeys = new ConcurrentHashMap<>();
+    private final Cache<String, byte[]> promoted;
+    private final RedisNotifier notifier;
+    private final RedisSerializer<Object> serializer;
+    private final boolean enabled;
+    private final double sampleRate;
+    private final int sampledThreshold;
+    private final int topK;
+    private final int maxHotKeys;
+    private final boolean promote;
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public HotKeyDetector(RedisUtilProperties properties, RedisNotifier notifier, RedisTemplate<String, Object> redisTemplate) {
+        this(properties.getHotKey(), notifier, (RedisSerializer<Object>) redisTemplate.getValueSerializer());
+    }
+
+    public HotKeyDetector(RedisUtilProperties.HotKey config, RedisNotifier notifier, RedisSerializer<Object> serializer) {
+        this.notifier = notifier;
+        this.serializer = serializer;
+        this.sampleRate = Math.min(config.getSampleRate(), 1);
+        this.enabled = config.isEnabled() && sampleRate > 0;
+        this.sketch = new FrequencySketch(config.getSketchWidth());
+        // 计数每个窗口减半，稳定后窗口末尾的计数约为每窗口采样次数的2倍
+        this.sampledThreshold = (int) Math.max(1, Math.ceil(2 * config.getThreshold() * sampleRate));
+        this.topK = config.getTopK();
+        this.maxHotKeys = Math.max(topK, 1) * 4;
+        this.promote = enabled && config.isPromote() && config.getPromoteExpire() > 0;
+        this.promoted = Caffeine.newBuilder()
+                .maximumSize(maxHotKeys)
+                .expireAfterWrite(Math.max(config.getPromoteExpire(), 1), TimeUnit.MILLISECONDS)
+                .build();
+        if (notifier != null && promote) {
+            notifier.subscribe(INVALIDATE_TOPIC, message -> promoted.invalidateAll(Arrays.asList(message.split(KEY_SEPARATOR))), false);
+            notifier.subscribe(INVALIDATE_PATTERN_TOPIC, this::invalidateLocalPattern, false);
+        }
+        if (enabled) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("redis-hot-key-");
+            threadFactory.setDaemon(true);
+            this.scheduler = new ScheduledThreadPoolExecutor(1, threadFactory);
+            this.scheduler.scheduleAtFixedRate(this::decay, config.getWindow(), config.getWindow(), TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * 读取已提升到本地的热点键，命中时同样计入访问次数
+     *
+     * @param key 键
+     * @return 值的副本，未提升或已过期时返回null
+     */
+    public Object getLocal(String key) {
+        if (!promote) {
+            return null;
+        }
+        byte[] value = promoted.getIfPresent(key);
+        if (value == null) {
+            return null;
+        }
+        record(key, null);
+        return serializer.deserialize(value);
+    }
+
+    /**
+     * 按采样率记录一次从Redis读取，键为热点时将值提升到本地
+     *
+     * @param key   键
+     * @param value 从Redis读取的值，为null时不提升
+     */
+    public void record(String key, Object value) {
+        if (!enabled || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+        int count = sketch.increment(key);
+        if (count < sampledThreshold) {
+            return;
+        }
+        if (!hotKeys.containsKey(key) && !admit(count)) {
+            return;
+        }
+        if (hotKeys.put(key, count) == null) {
+            logger.info("hot key detected: {}, ~{} accesses per window", key, accesses(count));
+        }
+        if (promote && value != null) {
+            promoted.put(key, serializer.serialize(value));
+        }
+    }
+
+    /**
+     * 键被修改或删除时调用，失效所有实例的本地副本。写入方无法知道其他实例提升了哪些键，因此开启promote时总是广播
+     *
+     * @param key 键
+     */
+    public void invalidate(String key) {
+        invalidateAll(Collections.singletonList(key));
+    }
+
+    /**
+     * 多个键被修改或删除时调用，合并为一条通知广播
+     *
+     * @param keys 键
+     */
+    public void invalidateAll(Collection<String> keys) {
+        if (!promote || keys.isEmpty()) {
+            return;
+        }
+        promoted.invalidateAll(keys);
+        if (notifier != null) {
+            notifier.publish(INVALIDATE_TOPIC, String.join(KEY_SEPARATOR, keys));
+        }
+    }
+
+    /**
+     * 按Redis glob模式删除键时调用，失效所有实例中匹配的本地副本
+     *
+     * @param pattern 匹配字符
+     */
+    public void invalidatePattern(String pattern) {
+        if (!promote) {
+            return;
+        }
+        invalidateLocalPattern(pattern);
+        if (notifier != null) {
+            notifier.publish(INVALIDATE_PATTERN_TOPIC, pattern);
+        }
+    }
+
+    private void invalidateLocalPattern(String pattern) {
+        Pattern regex = GlobPattern.compile(pattern);
+        promoted.asMap().keySet().removeIf(key -> regex.matcher(key).matches());
+    }
+
+    /**
+     * 当前的热点键
+     *
+     * @param key 键
+     * @return boolean
+     */
+    public boolean isHot(String key) {
+        return hotKeys.containsKey(key);
+    }
+
+    /**
+     * 访问量最高的K个热点键，按估算访问量倒序
+     *
+     * @return List<HotKey>
+     */
+    public List<HotKey> topK() {
+        List<HotKey> list = new ArrayList<>(hotKeys.size());
+        hotKeys.forEach((key, count) -> list.add(new HotKey(key, accesses(sketch.estimate(key)))));
+        list.sort((a, b) -> Long.compare(b.accesses, a.accesses));
+        return list.size() > topK ? new ArrayList<>(list.subList(0, topK)) : list;
+    }
+
+    /**
+     * 已提升到本地的键数量（近似值）
+     *
+     * @return long
+     */
+    public long promotedSize() {
+        return promoted.estimatedSize();
+    }
+
+    /**
+     * 热点键已满时，新键只有比当前最冷的热点键更热才能替换它
+     */
+    private boolean admit(int count) {
+        if (hotKeys.size() < maxHotKeys) {
+            return true;
+        }
+        Map.Entry<String, Integer> coldest = null;
+        for (Map.Entry<String, Integer> entry : hotKeys.entrySet()) {
+            if (coldest == null || entry.getValue() < coldest.getValue()) {
+                coldest = entry;
+            }
+        }
+        if (coldest == null || coldest.getValue() >= count) {
+            return false;
+        }
+        hotKeys.remove(coldest.getKey(), coldest.getValue());
+        promoted.invalidate(coldest.getKey());
+        return true;
+    }
+
+    /**
+     * 窗口结束：计数减半，移除已降温的键
+     */
+    void decay() {
+        sketch.decay();
+        hotKeys.forEach((key, count) -> {
+            int estimate = sketch.estimate(key);
+            // 减半后的计数约为上一窗口的采样次数，低于阈值即降温
+            if (estimate * 2 < sampledThreshold) {
+                hotKeys.remove(key);
+                promoted.invalidate(key);
+                logger.debug("hot key cooled: {}", key);
+            } else {
+                hotKeys.put(key, estimate);
+            }
+        });
+    }
+
+    private long accesses(int count) {
+        return (long) (count / (2 * sampleRate));
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * 热点键及其估算的每窗口访问量
+     */
+    public static class HotKey {
+        private final String key;
+        private final long accesses;
+
+        public HotKey(String key, long accesses) {
+            this.key = key;
+            this.accesses = accesses;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getAccesses() {
+            return accesses;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + accesses;
+        }
+    }
+}
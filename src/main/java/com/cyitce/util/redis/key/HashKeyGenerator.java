@@ -0,0 +1,148 @@
+package com.cyitce.util.redis.key;
+
+import com.cyitce.util.redis.configs.RedisUtilProperties;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @version 1.0
+ * 默认缓存键生成器。简单类型（字符串、数字、布尔、字符、枚举）直接拼接，过长时哈希；
+ * 其他对象按属性名排序后序列化为规范的二进制形式，取128位MurmurHash3，避免键中出现类名等冗长信息。
+ * 整个键超过最大长度时，参数部分整体哈希。
+ * 为保证不同参数不会生成相同的键：null写为\N，字符串中的'\'、':'、'#'以'\'转义，哈希值以'#'开头。
+ */
+@Primary
+@Component
+public class HashKeyGenerator implements KeyGenerator {
+
+    private static final String NULL = "\\N";
+    private static final char HASH = '#';
+    private static final char ESCAPE = '\\';
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Class<?>, KeyExtractor<Object>> extractors = new ConcurrentHashMap<>();
+    private final int maxKeyLength;
+    private final int maxArgLength;
+
+    @Autowired
+    public HashKeyGenerator(RedisUtilProperties properties, ObjectProvider<KeyExtractor<?>> extractors) {
+        this(properties.getKey().getMaxLength(), properties.getKey().getMaxArgLength());
+        extractors.orderedStream().forEach(this::registerExtractor);
+    }
+
+    public HashKeyGenerator(int maxKeyLength, int maxArgLength) {
+        this.maxKeyLength = maxKeyLength;
+        this.maxArgLength = maxArgLength;
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        objectMapper.configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
+        objectMapper.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        objectMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+    }
+
+    /**
+     * 注册参数类型的键值提取器
+     *
+     * @param extractor 提取器
+     */
+    @SuppressWarnings("unchecked")
+    public void registerExtractor(KeyExtractor<?> extractor) {
+        extractors.put(extractor.type(), (KeyExtractor<Object>) extractor);
+    }
+
+    @Override
+    public String generate(String prefix, Object[] args, int[] params) {
+        if (params.length == 0) {
+            return prefix;
+        }
+        StringBuilder keyBuilder = new StringBuilder(prefix.length() + params.length * 16).append(prefix);
+        for (int param : params) {
+            keyBuilder.append(':');
+            appendArg(keyBuilder, args[param]);
+        }
+        if (keyBuilder.length() > maxKeyLength) {
+            String argsPart = keyBuilder.substring(prefix.length());
+            keyBuilder.setLength(prefix.length());
+            keyBuilder.append(':').append(HASH).append(Murmur3.hash128Hex(argsPart.getBytes(StandardCharsets.UTF_8)));
+        }
+        return keyBuilder.toString();
+    }
+
+    private void appendArg(StringBuilder keyBuilder, Object arg) {
+        if (arg == null) {
+            keyBuilder.append(NULL);
+            return;
+        }
+        KeyExtractor<Object> extractor = extractor(arg.getClass());
+        if (extractor != null) {
+            arg = extractor.extract(arg);
+            if (arg == null) {
+                keyBuilder.append(NULL);
+                return;
+            }
+        }
+        if (isSimple(arg)) {
+            String text = arg instanceof Enum ? ((Enum<?>) arg).name() : arg.toString();
+            if (text.length() <= maxArgLength) {
+                appendEscaped(keyBuilder, text);
+            } else {
+                keyBuilder.append(HASH).append(Murmur3.hash128Hex(text.getBytes(StandardCharsets.UTF_8)));
+            }
+            return;
+        }
+        keyBuilder.append(HASH);
+        try {
+            keyBuilder.append(Murmur3.hash128Hex(objectMapper.writeValueAsBytes(arg)));
+        } catch (JsonProcessingException e) {
+            keyBuilder.append(Murmur3.hash128Hex(arg.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * 转义分隔符、哈希标记与转义符本身，使拼接结果可唯一还原为各个参数
+     */
+    private static void appendEscaped(StringBuilder keyBuilder, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ':' || c == HASH || c == ESCAPE) {
+                keyBuilder.append(ESCAPE);
+            }
+            keyBuilder.append(c);
+        }
+    }
+
+    private KeyExtractor<Object> extractor(Class<?> type) {
+        if (extractors.isEmpty()) {
+            return null;
+        }
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            KeyExtractor<Object> extractor = extractors.get(c);
+            if (extractor != null) {
+                return extractor;
+            }
+        }
+        for (Class<?> c : type.getInterfaces()) {
+            KeyExtractor<Object> extractor = extractors.get(c);
+            if (extractor != null) {
+                return extractor;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isSimple(Object arg) {
+        return arg instanceof CharSequence || arg instanceof Number || arg instanceof Boolean
+                || arg instanceof Character || arg instanceof Enum;
+    }
+}
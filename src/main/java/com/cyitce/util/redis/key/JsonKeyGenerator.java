@@ -0,0 +1,40 @@
+package com.cyitce.util.redis.key;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import org.springframework.stereotype.Component;
+
+/**
+ * @version 1.0
+ * 旧版缓存键生成方式：每个参数序列化为带类型信息的JSON后拼接，可读性好但键较长。
+ * 需要兼容旧缓存键时可在注解中指定 keyGenerator = JsonKeyGenerator.class
+ */
+@Component
+public class JsonKeyGenerator implements KeyGenerator {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public JsonKeyGenerator() {
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+    }
+
+    @Override
+    public String generate(String prefix, Object[] args, int[] params) {
+        if (params.length == 0) {
+            return prefix;
+        }
+        StringBuilder keyBuilder = new StringBuilder(prefix.length() + params.length * 16).append(prefix);
+        for (int param : params) {
+            try {
+                keyBuilder.append(':').append(objectMapper.writeValueAsString(args[param]));
+            } catch (JsonProcessingException e) {
+                keyBuilder.append(args[param].toString());
+            }
+        }
+        return keyBuilder.toString();
+    }
+}
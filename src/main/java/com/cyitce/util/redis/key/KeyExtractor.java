@@ -0,0 +1,24 @@
+package com.cyitce.util.redis.key;
+
+/**
+ * @version 1.0
+ * @see HashKeyGenerator
+ * 按参数类型提取参与缓存键的值，例如对实体类只取其ID。注册为Spring Bean后自动生效。
+ */
+public interface KeyExtractor<T> {
+
+    /**
+     * 支持的参数类型，包括其子类
+     *
+     * @return Class
+     */
+    Class<T> type();
+
+    /**
+     * 提取参与缓存键的值
+     *
+     * @param arg 参数
+     * @return 值，将按简单类型或对象继续处理
+     */
+    Object extract(T arg);
+}
@@ -0,0 +1,19 @@
+package com.cyitce.util.redis.key;
+
+/**
+ * @version 1.0
+ * @see com.cyitce.util.redis.annotation.ResultCache#keyGenerator()
+ * 缓存键生成器，实现类需注册为Spring Bean
+ */
+public interface KeyGenerator {
+
+    /**
+     * 生成缓存键
+     *
+     * @param prefix 键前缀，注解中的key或 ResultCache:类路径.方法名
+     * @param args   方法参数
+     * @param params 参与生成键的参数索引
+     * @return 缓存键
+     */
+    String generate(String prefix, Object[] args, int[] params);
+}
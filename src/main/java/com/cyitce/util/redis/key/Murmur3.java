@@ -0,0 +1,159 @@
+package com.cyitce.util.redis.key;
+
+/**
+ * @version 1.0
+ * MurmurHash3 x64 128位非加密哈希，结果与Guava的Hashing.murmur3_128()一致。
+ */
+public final class Murmur3 {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Murmur3() {
+    }
+
+    /**
+     * 计算128位哈希
+     *
+     * @param data 数据
+     * @param seed 种子
+     * @return long[2]，{h1, h2}
+     */
+    public static long[] hash128(byte[] data, int seed) {
+        return hash128(data, 0, data.length, seed);
+    }
+
+    /**
+     * 计算128位哈希
+     *
+     * @param data   数据
+     * @param offset 开始位置
+     * @param length 长度
+     * @param seed   种子
+     * @return long[2]，{h1, h2}
+     */
+    @SuppressWarnings("fallthrough")
+    public static long[] hash128(byte[] data, int offset, int length, int seed) {
+        long h1 = seed & 0xffffffffL;
+        long h2 = seed & 0xffffffffL;
+        int blocks = length >>> 4;
+        for (int i = 0; i < blocks; i++) {
+            int index = offset + (i << 4);
+            long k1 = getLong(data, index);
+            long k2 = getLong(data, index + 8);
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        int tail = offset + (blocks << 4);
+        long k1 = 0;
+        long k2 = 0;
+        switch (length & 15) {
+            case 15:
+                k2 ^= (long) (data[tail + 14] & 0xff) << 48;
+            case 14:
+                k2 ^= (long) (data[tail + 13] & 0xff) << 40;
+            case 13:
+                k2 ^= (long) (data[tail + 12] & 0xff) << 32;
+            case 12:
+                k2 ^= (long) (data[tail + 11] & 0xff) << 24;
+            case 11:
+                k2 ^= (long) (data[tail + 10] & 0xff) << 16;
+            case 10:
+                k2 ^= (long) (data[tail + 9] & 0xff) << 8;
+            case 9:
+                k2 ^= data[tail + 8] & 0xff;
+                h2 ^= mixK2(k2);
+            case 8:
+                k1 ^= (long) (data[tail + 7] & 0xff) << 56;
+            case 7:
+                k1 ^= (long) (data[tail + 6] & 0xff) << 48;
+            case 6:
+                k1 ^= (long) (data[tail + 5] & 0xff) << 40;
+            case 5:
+                k1 ^= (long) (data[tail + 4] & 0xff) << 32;
+            case 4:
+                k1 ^= (long) (data[tail + 3] & 0xff) << 24;
+            case 3:
+                k1 ^= (long) (data[tail + 2] & 0xff) << 16;
+            case 2:
+                k1 ^= (long) (data[tail + 1] & 0xff) << 8;
+            case 1:
+                k1 ^= data[tail] & 0xff;
+                h1 ^= mixK1(k1);
+            default:
+                break;
+        }
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[]{h1, h2};
+    }
+
+    /**
+     * 计算128位哈希并转为32位十六进制字符串（小端字节序，与Guava的HashCode.toString()一致）
+     *
+     * @param data 数据
+     * @return String
+     */
+    public static String hash128Hex(byte[] data) {
+        long[] hash = hash128(data, 0);
+        char[] chars = new char[32];
+        appendHex(chars, 0, hash[0]);
+        appendHex(chars, 16, hash[1]);
+        return new String(chars);
+    }
+
+    private static void appendHex(char[] chars, int offset, long value) {
+        for (int i = 0; i < 8; i++) {
+            int b = (int) (value >>> (i << 3)) & 0xff;
+            chars[offset + (i << 1)] = HEX[b >>> 4];
+            chars[offset + (i << 1) + 1] = HEX[b & 0xf];
+        }
+    }
+
+    private static long getLong(byte[] data, int index) {
+        return (data[index] & 0xffL)
+                | (data[index + 1] & 0xffL) << 8
+                | (data[index + 2] & 0xffL) << 16
+                | (data[index + 3] & 0xffL) << 24
+                | (data[index + 4] & 0xffL) << 32
+                | (data[index + 5] & 0xffL) << 40
+                | (data[index + 6] & 0xffL) << 48
+                | (data[index + 7] & 0xffL) << 56;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        return k2;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,208 @@
+package com.cyitce.util.redis.loader;
+
+import com.cyitce.util.redis.RedisUtil;
+import com.cyitce.util.redis.configs.RedisUtilProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @version 1.0
+ * 批量加载器，将多次get合并为一次MGET，每个调用方得到各自的future。两种合并方式：
+ * <ul>
+ *     <li>时间窗口：窗口期内所有线程发起的load合并发送，达到最大批量时立即发送</li>
+ *     <li>请求作用域：当前线程通过openScope()开启作用域后发起的load在作用域关闭或调用dispatch()时合并发送</li>
+ * </ul>
+ * 同步的get会立即发送已收集的请求并等待，只与此前已排队的load合并。
+ * <pre>
+ * try (RedisBatchLoader.Scope scope = loader.openScope()) {
+ *     for (String id : ids) {
+ *         futures.add(loader.load("user:" + id));
+ *     }
+ * }
+ * </pre>
+ */
+@Component
+public class RedisBatchLoader implements DisposableBean {
+
+    private final Logger logger = LoggerFactory.getLogger(RedisBatchLoader.class);
+    private final RedisUtil redisUtil;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final Queue<Request> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingSize = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ThreadLocal<Scope> scope = new ThreadLocal<>();
+
+    @Autowired
+    public RedisBatchLoader(RedisUtil redisUtil, RedisUtilProperties properties) {
+        this.redisUtil = redisUtil;
+        this.windowMicros = properties.getBatchLoader().getWindow();
+        this.maxBatchSize = properties.getBatchLoader().getMaxBatchSize();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("redis-batch-loader-");
+        threadFactory.setDaemon(true);
+        this.scheduler = new ScheduledThreadPoolExecutor(1, threadFactory);
+    }
+
+    /**
+     * 异步获取Value，与其他get合并为一次MGET
+     *
+     * @param key 键
+     * @return 值的future，值不存在时为null
+     */
+    public CompletableFuture<Object> load(String key) {
+        Request request = new Request(key);
+        Scope current = scope.get();
+        if (current != null) {
+            current.requests.add(request);
+            if (current.requests.size() >= maxBatchSize) {
+                current.dispatch();
+            }
+            return request.future;
+        }
+        pending.add(request);
+        if (pendingSize.incrementAndGet() >= maxBatchSize) {
+            flush();
+        } else if (scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::flushScheduled, windowMicros, TimeUnit.MICROSECONDS);
+        }
+        return request.future;
+    }
+
+    /**
+     * 同步获取Value。调用方要阻塞等待结果，因此不等待时间窗口：
+     * 作用域内立即发送作用域已收集的get，作用域外立即发送连同其他线程已排队的get
+     *
+     * @param key 键
+     * @return 值
+     */
+    public Object get(String key) {
+        CompletableFuture<Object> future = load(key);
+        Scope current = scope.get();
+        if (current != null) {
+            // 作用域内的get只在dispatch()/close()时发送，不先发送就等待会永远阻塞
+            current.dispatch();
+        } else {
+            flush();
+        }
+        return future.join();
+    }
+
+    /**
+     * 为当前线程开启请求作用域，作用域内的get在dispatch()或close()时合并发送
+     *
+     * @return Scope
+     */
+    public Scope openScope() {
+        Scope current = scope.get();
+        if (current != null) {
+            current.depth++;
+            return current;
+        }
+        current = new Scope();
+        scope.set(current);
+        return current;
+    }
+
+    private void flushScheduled() {
+        scheduled.set(false);
+        flush();
+    }
+
+    private void flush() {
+        while (true) {
+            List<Request> batch = new ArrayList<>(Math.min(maxBatchSize, Math.max(pendingSize.get(), 1)));
+            Request request;
+            while (batch.size() < maxBatchSize && (request = pending.poll()) != null) {
+                pendingSize.decrementAndGet();
+                batch.add(request);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(List<Request> batch) {
+        Map<String, List<Request>> byKey = new LinkedHashMap<>(batch.size() * 2);
+        for (Request request : batch) {
+            byKey.computeIfAbsent(request.key, k -> new ArrayList<>(1)).add(request);
+        }
+        List<String> keys = new ArrayList<>(byKey.keySet());
+        try {
+            List<Object> values = redisUtil.mget(keys);
+            for (int i = 0; i < keys.size(); i++) {
+                Object value = values == null ? null : values.get(i);
+                for (Request request : byKey.get(keys.get(i))) {
+                    request.future.complete(value);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("batch get {} keys failed: {}", keys.size(), e.getMessage());
+            for (Request request : batch) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdown();
+        flush();
+    }
+
+    private static final class Request {
+        private final String key;
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        private Request(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * 请求作用域，仅在开启它的线程内使用
+     */
+    public final class Scope implements AutoCloseable {
+        private List<Request> requests = new ArrayList<>();
+        private int depth = 1;
+
+        private Scope() {
+        }
+
+        /**
+         * 立即发送作用域内已收集的get
+         */
+        public void dispatch() {
+            if (requests.isEmpty()) {
+                return;
+            }
+            List<Request> batch = requests;
+            requests = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i += maxBatchSize) {
+                RedisBatchLoader.this.dispatch(batch.subList(i, Math.min(i + maxBatchSize, batch.size())));
+            }
+        }
+
+        /**
+         * 发送剩余的get并关闭作用域
+         */
+        @Override
+        public void close() {
+            dispatch();
+            if (--depth == 0) {
+                scope.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.cyitce.util.redis.lock;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @version 1.0
+ * 分布式锁前的本地锁层。同一锁ID先竞争本地锁，只有本地胜出的线程才访问Redis；
+ * 重入次数记录在线程本地，重入与非最后一次释放都不访问Redis。
+ * 每个锁ID拥有独立的本地锁，按引用计数在最后一个使用者离开时移除；持有线程未释放就结束时，本地锁可被其他线程接管。
+ */
+public class LocalLockTable {
+
+    /**
+     * 等待期间检查持有线程是否存活的间隔
+     */
+    private static final long DEAD_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private final Map<String, Entry> locks = new ConcurrentHashMap<>();
+    private final ThreadLocal<Map<String, int[]>> holds = new ThreadLocal<>();
+
+    /**
+     * 非阻塞获取锁ID的本地锁
+     *
+     * @param lockId 锁ID
+     * @return 是否成功，本实例内其他线程持有同一锁ID时返回false
+     */
+    public boolean tryLock(String lockId) {
+        try {
+            return tryLock(lockId, 0, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 获取锁ID的本地锁，最多等待指定时间
+     *
+     * @param lockId  锁ID
+     * @param timeout 等待时间
+     * @param unit    时间单位
+     * @return 是否成功
+     * @throws InterruptedException 线程被中断
+     */
+    public boolean tryLock(String lockId, long timeout, TimeUnit unit) throws InterruptedException {
+        Entry entry = retain(lockId);
+        int state = Entry.FAILED;
+        try {
+            state = entry.acquire(System.nanoTime() + unit.toNanos(timeout));
+            return state != Entry.FAILED;
+        } finally {
+            // 失败或当前线程已持有时归还本次引用；接管已结束线程的锁时归还它的引用
+            if (state != Entry.ACQUIRED) {
+                release(lockId);
+            }
+        }
+    }
+
+    /**
+     * 释放当前线程持有的本地锁
+     *
+     * @param lockId 锁ID
+     */
+    public void unlock(String lockId) {
+        Entry entry = locks.get(lockId);
+        if (entry != null && entry.release()) {
+            release(lockId);
+        }
+    }
+
+    /**
+     * 当前线程已持有该锁时重入次数加一
+     *
+     * @param lockId 锁ID
+     * @return 是否已持有
+     */
+    public boolean reenter(String lockId) {
+        Map<String, int[]> map = holds.get();
+        int[] count = map == null ? null : map.get(lockId);
+        if (count == null) {
+            return false;
+        }
+        count[0]++;
+        return true;
+    }
+
+    /**
+     * 记录当前线程首次获得锁
+     *
+     * @param lockId 锁ID
+     */
+    public void acquired(String lockId) {
+        Map<String, int[]> map = holds.get();
+        if (map == null) {
+            map = new HashMap<>(4);
+            holds.set(map);
+        }
+        map.put(lockId, new int[]{1});
+    }
+
+    /**
+     * 当前线程释放一次重入
+     *
+     * @param lockId 锁ID
+     * @return 剩余重入次数，为0时应释放Redis锁及本地锁；当前线程未持有时返回-1
+     */
+    public int exit(String lockId) {
+        Map<String, int[]> map = holds.get();
+        int[] count = map == null ? null : map.get(lockId);
+        if (count == null) {
+            return -1;
+        }
+        if (--count[0] > 0) {
+            return count[0];
+        }
+        map.remove(lockId);
+        if (map.isEmpty()) {
+            holds.remove();
+        }
+        return 0;
+    }
+
+    /**
+     * 当前线程是否持有该锁
+     *
+     * @param lockId 锁ID
+     * @return boolean
+     */
+    public boolean isHeldByCurrentThread(String lockId) {
+        Map<String, int[]> map = holds.get();
+        return map != null && map.containsKey(lockId);
+    }
+
+    /**
+     * 当前存在的本地锁个数
+     *
+     * @return int
+     */
+    public int size() {
+        return locks.size();
+    }
+
+    private Entry retain(String lockId) {
+        return locks.compute(lockId, (k, entry) -> {
+            if (entry == null) {
+                entry = new Entry();
+            }
+            entry.refs++;
+            return entry;
+        });
+    }
+
+    private void release(String lockId) {
+        locks.computeIfPresent(lockId, (k, entry) -> --entry.refs == 0 ? null : entry);
+    }
+
+    private static final class Entry {
+
+        private static final int FAILED = -1;
+        private static final int ACQUIRED = 0;
+        private static final int TAKEN_OVER = 1;
+        private static final int HELD = 2;
+        /**
+         * 引用计数，只在ConcurrentHashMap的compute中修改
+         */
+        private int refs;
+        private Thread holder;
+
+        private synchronized int acquire(long deadline) throws InterruptedException {
+            Thread current = Thread.currentThread();
+            if (holder == current) {
+                return HELD;
+            }
+            while (true) {
+                if (holder == null) {
+                    holder = current;
+                    return ACQUIRED;
+                }
+                if (!holder.isAlive()) {
+                    holder = current;
+                    return TAKEN_OVER;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return FAILED;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, Math.min(remaining, DEAD_CHECK_NANOS));
+            }
+        }
+
+        private synchronized boolean release() {
+            if (holder != Thread.currentThread()) {
+                return false;
+            }
+            holder = null;
+            notify();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.cyitce.util.redis.lock;
+
+import com.cyitce.util.redis.RedisUtil;
+import com.cyitce.util.redis.notify.RedisNotifier;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * @version 1.0
+ * 分布式锁的Lua脚本，每个操作一次往返且原子执行。RedisTemplate执行时优先使用EVALSHA，服务端未缓存时自动回退为EVAL。
+ * 锁为Hash结构：field为持有者标识（实例ID:线程ID），value为重入次数。
+ * 释放通知以JSON字符串发布，按RedisNotifier的格式（实例ID|锁ID）编码，任意序列化格式下均可被读取。
+ */
+public final class LockScripts {
+
+    /**
+     * 脚本参数序列化器，参数均为字符串
+     */
+    public static final RedisSerializer<String> ARGS_SERIALIZER = RedisSerializer.string();
+
+    /**
+     * 锁完全释放时的通知主题，通知内容为锁ID
+     */
+    public static final String RELEASE_TOPIC = "lock:release";
+
+    /**
+     * 锁释放通知的完整通道
+     */
+    public static final String RELEASE_CHANNEL = RedisNotifier.CHANNEL_PREFIX + RELEASE_TOPIC;
+
+    /**
+     * 加锁或重入，并设置过期时间。KEYS[1]=锁键，ARGV[1]=过期时间ms，ARGV[2]=持有者；
+     * 成功返回nil，失败返回锁剩余过期时间ms
+     */
+    public static final RedisScript<Long> LOCK = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 or redis.call('hexists', KEYS[1], ARGV[2]) == 1 then " +
+                    "redis.call('hincrby', KEYS[1], ARGV[2], 1); " +
+                    "redis.call('pexpire', KEYS[1], ARGV[1]); " +
+                    "return nil; " +
+                    "end; " +
+                    "return redis.call('pttl', KEYS[1]);", Long.class);
+
+    /**
+     * 公平加锁：按到达顺序排队，队首或已持有时才能加锁，超过等待截止时间的排队者被清除。
+     * KEYS[1]=锁键，KEYS[2]=排队队列（score为到达时间），KEYS[3]=排队超时（score为截止时间），
+     * ARGV[1]=过期时间ms，ARGV[2]=持有者，ARGV[3]=当前时间ms，ARGV[4]=等待截止时间ms，ARGV[5]=锁空闲但未轮到时的重试间隔ms；
+     * 成功返回nil，失败返回建议的等待时间ms
+     */
+    public static final RedisScript<Long> FAIR_LOCK = new DefaultRedisScript<>(
+            "local expired = redis.call('zrangebyscore', KEYS[3], '-inf', ARGV[3]); " +
+                    "for i = 1, #expired do " +
+                    "redis.call('zrem', KEYS[2], expired[i]); " +
+                    "redis.call('zrem', KEYS[3], expired[i]); " +
+                    "end; " +
+                    "if redis.call('hexists', KEYS[1], ARGV[2]) == 1 then " +
+                    "redis.call('hincrby', KEYS[1], ARGV[2], 1); " +
+                    "redis.call('pexpire', KEYS[1], ARGV[1]); " +
+                    "return nil; " +
+                    "end; " +
+                    "if redis.call('exists', KEYS[1]) == 0 then " +
+                    "local head = redis.call('zrange', KEYS[2], 0, 0)[1]; " +
+                    "if head == nil or head == ARGV[2] then " +
+                    "redis.call('zrem', KEYS[2], ARGV[2]); " +
+                    "redis.call('zrem', KEYS[3], ARGV[2]); " +
+                    "redis.call('hincrby', KEYS[1], ARGV[2], 1); " +
+                    "redis.call('pexpire', KEYS[1], ARGV[1]); " +
+                    "return nil; " +
+                    "end; " +
+                    "end; " +
+                    "redis.call('zadd', KEYS[2], 'NX', ARGV[3], ARGV[2]); " +
+                    "redis.call('zadd', KEYS[3], ARGV[4], ARGV[2]); " +
+                    "local keep = tonumber(ARGV[4]) - tonumber(ARGV[3]); " +
+                    "if redis.call('pttl', KEYS[2]) < keep then " +
+                    "redis.call('pexpire', KEYS[2], keep); " +
+                    "redis.call('pexpire', KEYS[3], keep); " +
+                    "end; " +
+                    "local ttl = redis.call('pttl', KEYS[1]); " +
+                    "if ttl < 0 then " +
+                    "return tonumber(ARGV[5]); " +
+                    "end; " +
+                    "return ttl;", Long.class);
+
+    /**
+     * 放弃排队。KEYS[1]=排队队列，KEYS[2]=排队超时，ARGV[1]=持有者
+     */
+    public static final RedisScript<Long> FAIR_QUIT = new DefaultRedisScript<>(
+            "redis.call('zrem', KEYS[2], ARGV[1]); " +
+                    "return redis.call('zrem', KEYS[1], ARGV[1]);", Long.class);
+
+    /**
+     * 释放一次重入，次数为0时删除锁并在释放通道上发布通知唤醒等待者。
+     * KEYS[1]=锁键，ARGV[1]=持有者，ARGV[2]=通知通道，ARGV[3]=通知内容；
+     * 非持有者返回nil，仍被持有返回0，已完全释放返回1
+     */
+    public static final RedisScript<Long> UNLOCK = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then " +
+                    "return nil; " +
+                    "end; " +
+                    "if redis.call('hincrby', KEYS[1], ARGV[1], -1) > 0 then " +
+                    "return 0; " +
+                    "end; " +
+                    "redis.call('del', KEYS[1]); " +
+                    "redis.call('publish', ARGV[2], cjson.encode(ARGV[3])); " +
+                    "return 1;", Long.class);
+
+    /**
+     * 全部加锁或全部失败（可重入）。KEYS=按字典序排序的锁键，ARGV[1]=过期时间ms，ARGV[2]=持有者；
+     * 成功返回nil，失败返回第一个被其他持有者占用的锁的剩余过期时间ms
+     */
+    public static final RedisScript<Long> LOCK_ALL = new DefaultRedisScript<>(
+            "for i = 1, #KEYS do " +
+                    "if redis.call('exists', KEYS[i]) == 1 and redis.call('hexists', KEYS[i], ARGV[2]) == 0 then " +
+                    "return redis.call('pttl', KEYS[i]); " +
+                    "end; " +
+                    "end; " +
+                    "for i = 1, #KEYS do " +
+                    "redis.call('hincrby', KEYS[i], ARGV[2], 1); " +
+                    "redis.call('pexpire', KEYS[i], ARGV[1]); " +
+                    "end; " +
+                    "return nil;", Long.class);
+
+    /**
+     * 批量释放一次重入，完全释放的锁发布通知。KEYS=锁键，ARGV[1]=持有者，ARGV[2]=通知通道，ARGV[3]=通知内容前缀（实例ID|）；
+     * 返回本次调用中作为持有者释放的锁个数
+     */
+    public static final RedisScript<Long> UNLOCK_ALL = new DefaultRedisScript<>(
+            "local released = 0; " +
+                    "for i = 1, #KEYS do " +
+                    "if redis.call('hexists', KEYS[i], ARGV[1]) == 1 then " +
+                    "released = released + 1; " +
+                    "if redis.call('hincrby', KEYS[i], ARGV[1], -1) <= 0 then " +
+                    "redis.call('del', KEYS[i]); " +
+                    "redis.call('publish', ARGV[2], cjson.encode(ARGV[3] .. string.sub(KEYS[i], 1, -" + (RedisUtil.LOCK.length() + 1) + "))); " +
+                    "end; " +
+                    "end; " +
+                    "end; " +
+                    "return released;", Long.class);
+
+    /**
+     * 持有者重置过期时间。KEYS[1]=锁键，ARGV[1]=过期时间ms，ARGV[2]=持有者；成功返回1，非持有者返回0
+     */
+    public static final RedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[1], ARGV[2]) == 1 then " +
+                    "redis.call('pexpire', KEYS[1], ARGV[1]); " +
+                    "return 1; " +
+                    "end; " +
+                    "return 0;", Long.class);
+
+    private LockScripts() {
+    }
+
+    /**
+     * 锁释放通知内容
+     *
+     * @param lockId 锁ID
+     * @return 实例ID|锁ID
+     */
+    public static String releaseMessage(String lockId) {
+        return RedisUtil.INSTANCE_ID + RedisNotifier.SEPARATOR + lockId;
+    }
+
+    /**
+     * 当前线程的持有者标识，包含JVM实例ID，避免不同实例的线程ID冲突
+     *
+     * @return 实例ID:线程ID
+     */
+    public static String owner() {
+        return owner(Thread.currentThread());
+    }
+
+    /**
+     * 指定线程的持有者标识
+     *
+     * @param thread 线程
+     * @return 实例ID:线程ID
+     */
+    public static String owner(Thread thread) {
+        return RedisUtil.INSTANCE_ID + ":" + thread.getId();
+    }
+}
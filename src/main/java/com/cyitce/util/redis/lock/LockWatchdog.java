@@ -0,0 +1,202 @@
+package com.cyitce.util.redis.lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @version 1.0
+ * 锁续期看门狗。未指定持有时间的锁以较短的租期加锁，由一个共享的调度线程每隔租期的1/3通过管道批量续期本实例持有的所有锁；
+ * 锁完全释放、续期时发现已不再持有、或持有线程已结束时停止续期，锁将在一个租期内自动过期。
+ * 续期脚本以EVALSHA发送，服务端没有缓存该脚本（NOSCRIPT，如重启、SCRIPT FLUSH、切换节点后）时该批改用EVAL重发，EVAL同时会缓存脚本。
+ */
+public class LockWatchdog {
+
+    public static final long DEFAULT_LEASE = 30000;
+    private static final int BATCH_SIZE = 1000;
+    private static final byte[] RENEW_SCRIPT = LockScripts.RENEW.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+    private static final String RENEW_SHA = LockScripts.RENEW.getSha1();
+    private final Logger logger = LoggerFactory.getLogger(LockWatchdog.class);
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final long lease;
+    private final byte[] rawLease;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService scheduler;
+
+    public LockWatchdog(RedisTemplate<String, Object> redisTemplate, long lease) {
+        if (lease <= 0) {
+            throw new IllegalArgumentException("lease must be positive: " + lease);
+        }
+        this.redisTemplate = redisTemplate;
+        this.lease = lease;
+        this.rawLease = String.valueOf(lease).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 开始为锁续期，同一持有者重复加入时只保留一条
+     *
+     * @param lockKey 锁键
+     * @param owner   持有者
+     * @param thread  持有线程
+     */
+    public void watch(String lockKey, String owner, Thread thread) {
+        entries.putIfAbsent(lockKey + '\n' + owner, new Entry(lockKey, owner, thread));
+        if (scheduler == null) {
+            start();
+        }
+    }
+
+    /**
+     * 停止为锁续期
+     *
+     * @param lockKey 锁键
+     * @param owner   持有者
+     */
+    public void unwatch(String lockKey, String owner) {
+        entries.remove(lockKey + '\n' + owner);
+    }
+
+    /**
+     * 正在续期的锁个数
+     *
+     * @return int
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    public long getLease() {
+        return lease;
+    }
+
+    private synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("redis-lock-watchdog-");
+        threadFactory.setDaemon(true);
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long period = Math.max(1, lease / 3);
+        executor.scheduleWithFixedDelay(this::renewAll, period, period, TimeUnit.MILLISECONDS);
+        scheduler = executor;
+    }
+
+    /**
+     * 批量续期所有仍被持有的锁
+     */
+    void renewAll() {
+        List<Map.Entry<String, Entry>> alive = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Thread thread = entry.getValue().thread.get();
+            if (thread == null || !thread.isAlive()) {
+                entries.remove(entry.getKey(), entry.getValue());
+                logger.warn("lock {} owner thread has terminated, stop renewing", entry.getValue().lockKey);
+            } else {
+                alive.add(entry);
+            }
+        }
+        for (int from = 0; from < alive.size(); from += BATCH_SIZE) {
+            List<Map.Entry<String, Entry>> batch = alive.subList(from, Math.min(from + BATCH_SIZE, alive.size()));
+            try {
+                List<Object> results;
+                try {
+                    results = renew(batch, true);
+                } catch (RuntimeException e) {
+                    if (!isNoScript(e)) {
+                        throw e;
+                    }
+                    // 续期可重复执行，整批重发
+                    results = renew(batch, false);
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    if (!Long.valueOf(1).equals(results.get(i))) {
+                        Map.Entry<String, Entry> entry = batch.get(i);
+                        entries.remove(entry.getKey(), entry.getValue());
+                        logger.warn("lock {} is no longer held, stop renewing", entry.getValue().lockKey);
+                    }
+                }
+            } catch (RuntimeException e) {
+                logger.warn("renew {} locks failed: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 通过管道续期一批锁
+     *
+     * @param batch 锁
+     * @param sha   是否以EVALSHA发送，否则以EVAL发送完整脚本
+     * @return 每个锁的续期结果
+     */
+    private List<Object> renew(List<Map.Entry<String, Entry>> batch, boolean sha) {
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, Entry> entry : batch) {
+                Entry e = entry.getValue();
+                if (sha) {
+                    connection.scriptingCommands().evalSha(RENEW_SHA, ReturnType.INTEGER, 1, e.rawKey, rawLease, e.rawOwner);
+                } else {
+                    connection.scriptingCommands().eval(RENEW_SCRIPT, ReturnType.INTEGER, 1, e.rawKey, rawLease, e.rawOwner);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 异常或管道中的某条命令是否为NOSCRIPT错误
+     */
+    static boolean isNoScript(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+            if (cause instanceof RedisPipelineException) {
+                for (Object result : ((RedisPipelineException) cause).getPipelineResult()) {
+                    if (result instanceof Throwable && isNoScript((Throwable) result)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 停止续期线程
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        entries.clear();
+    }
+
+    private static final class Entry {
+        private final String lockKey;
+        private final byte[] rawKey;
+        private final byte[] rawOwner;
+        private final WeakReference<Thread> thread;
+
+        private Entry(String lockKey, String owner, Thread thread) {
+            this.lockKey = lockKey;
+            this.rawKey = lockKey.getBytes(StandardCharsets.UTF_8);
+            this.rawOwner = owner.getBytes(StandardCharsets.UTF_8);
+            this.thread = new WeakReference<>(thread);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.cyitce.util.redis.lock;
+
+import com.cyitce.util.redis.RedisUtil;
+import com.cyitce.util.redis.notify.RedisNotifier;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * @version 1.0
+ * 分布式同步原语的阻塞等待：每次尝试前先注册释放通知，尝试失败后等待通知或建议的等待时间，期间不轮询Redis。
+ * 未启用通知时退化为按 RedisUtil.LOCK_RETRY_INTERVAL 定时重试。
+ */
+public final class NotifyingWait {
+
+    private NotifyingWait() {
+    }
+
+    /**
+     * 反复尝试直到成功或超时
+     *
+     * @param notifier 通知工具，可为null
+     * @param waitId   等待的释放通知内容（RELEASE_TOPIC上的消息）
+     * @param deadline 截止时间ms
+     * @param attempt  一次尝试，成功返回null，失败返回建议的等待时间ms，小于0表示只能等待通知
+     * @return 是否成功
+     * @throws InterruptedException 线程被中断
+     */
+    public static boolean await(RedisNotifier notifier, String waitId, long deadline, Supplier<Long> attempt) throws InterruptedException {
+        while (true) {
+            RedisNotifier.Waiter waiter = notifier == null ? null : notifier.waiter(LockScripts.RELEASE_TOPIC, waitId);
+            try {
+                // 先注册再尝试，避免错过尝试与等待之间的释放通知
+                Long hint = attempt.get();
+                if (hint == null) {
+                    return true;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                long wait = hint >= 0 ? Math.min(remaining, Math.max(hint, 1)) : remaining;
+                if (waiter != null) {
+                    waiter.await(wait, TimeUnit.MILLISECONDS);
+                } else {
+                    Thread.sleep(Math.min(wait, RedisUtil.LOCK_RETRY_INTERVAL));
+                }
+            } finally {
+                if (waiter != null) {
+                    waiter.close();
+                }
+            }
+        }
+    }
+}
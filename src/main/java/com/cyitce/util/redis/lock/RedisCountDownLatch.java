@@ -0,0 +1,98 @@
+package com.cyitce.util.redis.lock;
+
+import com.cyitce.util.redis.notify.RedisNotifier;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @version 1.0
+ * 分布式倒计时门闩。计数保存在 name:latch 中，计数减到0时删除并发布通知唤醒所有等待者。
+ */
+public class RedisCountDownLatch {
+
+    public static final String LATCH = ":latch";
+
+    /**
+     * KEYS[1]=计数键，ARGV[1]=通知通道，ARGV[2]=通知内容；返回剩余计数，计数不存在时返回0
+     */
+    static final RedisScript<Long> COUNT_DOWN = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then " +
+                    "return 0; " +
+                    "end; " +
+                    "local count = redis.call('decr', KEYS[1]); " +
+                    "if count <= 0 then " +
+                    "redis.call('del', KEYS[1]); " +
+                    "redis.call('publish', ARGV[1], cjson.encode(ARGV[2])); " +
+                    "return 0; " +
+                    "end; " +
+                    "return count;", Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisNotifier notifier;
+    private final String name;
+    private final String key;
+    private final byte[] rawKey;
+
+    public RedisCountDownLatch(RedisTemplate<String, Object> redisTemplate, RedisNotifier notifier, String name) {
+        this.redisTemplate = redisTemplate;
+        this.notifier = notifier;
+        this.name = name;
+        this.key = name + LATCH;
+        this.rawKey = key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 设置计数，仅在计数不存在（未设置或已归零）时生效
+     *
+     * @param count 计数
+     * @return 是否设置成功
+     */
+    public boolean trySetCount(long count) {
+        byte[] value = String.valueOf(count).getBytes(StandardCharsets.UTF_8);
+        return Boolean.TRUE.equals(redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.setNX(rawKey, value)));
+    }
+
+    /**
+     * 计数减一，减到0时唤醒所有等待者
+     *
+     * @return 剩余计数
+     */
+    public long countDown() {
+        Long result = redisTemplate.execute(COUNT_DOWN, LockScripts.ARGS_SERIALIZER, null, Collections.singletonList(key),
+                LockScripts.RELEASE_CHANNEL, LockScripts.releaseMessage(key));
+        return result == null ? 0 : result;
+    }
+
+    /**
+     * 当前计数
+     *
+     * @return long，已归零时返回0
+     */
+    public long getCount() {
+        byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(rawKey));
+        return value == null ? 0 : Long.parseLong(new String(value, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 阻塞直到计数归零或超时
+     *
+     * @param timeout  最大等待时间
+     * @param timeUnit 时间单位
+     * @return 是否已归零
+     * @throws InterruptedException 线程被中断
+     */
+    public boolean await(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        return NotifyingWait.await(notifier, key, System.currentTimeMillis() + timeUnit.toMillis(timeout),
+                () -> getCount() == 0 ? null : -1L);
+    }
+
+    public String getName() {
+        return name;
+    }
+}
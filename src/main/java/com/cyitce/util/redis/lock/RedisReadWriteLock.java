@@ -0,0 +1,197 @@
+package com.cyitce.util.redis.lock;
+
+import com.cyitce.util.redis.notify.RedisNotifier;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @version 1.0
+ * 分布式可重入读写锁。读锁之间可并行，写锁独占；持有写锁的线程可再获取读锁（降级），持有读锁时不能获取写锁。
+ * 锁为Hash结构：mode为read/write，持有者标识:r、持有者标识:w 为各自的重入次数，所有读者共用一个过期时间。
+ * 每个操作为一次原子脚本调用，锁完全释放时发布通知唤醒等待者；未指定持有时间时由看门狗续期。
+ */
+public class RedisReadWriteLock {
+
+    public static final String RW_LOCK = ":rwlock";
+
+    /**
+     * KEYS[1]=锁键，ARGV[1]=过期时间ms，ARGV[2]=持有者:r，ARGV[3]=持有者:w；成功返回nil，失败返回剩余过期时间ms
+     */
+    static final RedisScript<Long> READ_LOCK = new DefaultRedisScript<>(
+            "local mode = redis.call('hget', KEYS[1], 'mode'); " +
+                    "if mode == false then " +
+                    "redis.call('hset', KEYS[1], 'mode', 'read'); " +
+                    "redis.call('hset', KEYS[1], ARGV[2], 1); " +
+                    "redis.call('pexpire', KEYS[1], ARGV[1]); " +
+                    "return nil; " +
+                    "end; " +
+                    "if mode == 'read' or redis.call('hexists', KEYS[1], ARGV[3]) == 1 then " +
+                    "redis.call('hincrby', KEYS[1], ARGV[2], 1); " +
+                    "if redis.call('pttl', KEYS[1]) < tonumber(ARGV[1]) then " +
+                    "redis.call('pexpire', KEYS[1], ARGV[1]); " +
+                    "end; " +
+                    "return nil; " +
+                    "end; " +
+                    "return redis.call('pttl', KEYS[1]);", Long.class);
+
+    /**
+     * KEYS[1]=锁键，ARGV[1]=过期时间ms，ARGV[2]=持有者:w；成功返回nil，失败返回剩余过期时间ms
+     */
+    static final RedisScript<Long> WRITE_LOCK = new DefaultRedisScript<>(
+            "local mode = redis.call('hget', KEYS[1], 'mode'); " +
+                    "if mode == false then " +
+                    "redis.call('hset', KEYS[1], 'mode', 'write'); " +
+                    "redis.call('hset', KEYS[1], ARGV[2], 1); " +
+                    "redis.call('pexpire', KEYS[1], ARGV[1]); " +
+                    "return nil; " +
+                    "end; " +
+                    "if mode == 'write' and redis.call('hexists', KEYS[1], ARGV[2]) == 1 then " +
+                    "redis.call('hincrby', KEYS[1], ARGV[2], 1); " +
+                    "redis.call('pexpire', KEYS[1], ARGV[1]); " +
+                    "return nil; " +
+                    "end; " +
+                    "return redis.call('pttl', KEYS[1]);", Long.class);
+
+    /**
+     * 释放一次读锁或写锁。KEYS[1]=锁键，ARGV[1]=持有者:r或持有者:w，ARGV[2]=通知通道，ARGV[3]=通知内容；
+     * 非持有者返回nil，仍被持有返回0，当前持有者已完全释放返回1。
+     * 释放写锁后仅剩本线程的读锁时转为读模式并通知等待的读者；锁完全释放时删除并通知
+     */
+    static final RedisScript<Long> UNLOCK = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then " +
+                    "return nil; " +
+                    "end; " +
+                    "if redis.call('hincrby', KEYS[1], ARGV[1], -1) > 0 then " +
+                    "return 0; " +
+                    "end; " +
+                    "redis.call('hdel', KEYS[1], ARGV[1]); " +
+                    "if redis.call('hlen', KEYS[1]) <= 1 then " +
+                    "redis.call('del', KEYS[1]); " +
+                    "redis.call('publish', ARGV[2], cjson.encode(ARGV[3])); " +
+                    "return 1; " +
+                    "end; " +
+                    "if redis.call('hget', KEYS[1], 'mode') == 'write' and string.sub(ARGV[1], -2) == ':w' then " +
+                    "redis.call('hset', KEYS[1], 'mode', 'read'); " +
+                    "redis.call('publish', ARGV[2], cjson.encode(ARGV[3])); " +
+                    "end; " +
+                    "return 1;", Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisNotifier notifier;
+    private final LockWatchdog watchdog;
+    private final String name;
+    private final String key;
+    private final Side readLock = new Side(false);
+    private final Side writeLock = new Side(true);
+
+    public RedisReadWriteLock(RedisTemplate<String, Object> redisTemplate, RedisNotifier notifier, LockWatchdog watchdog, String name) {
+        this.redisTemplate = redisTemplate;
+        this.notifier = notifier;
+        this.watchdog = watchdog;
+        this.name = name;
+        this.key = name + RW_LOCK;
+    }
+
+    public Side readLock() {
+        return readLock;
+    }
+
+    public Side writeLock() {
+        return writeLock;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 读锁或写锁
+     */
+    public final class Side {
+
+        private final boolean write;
+
+        private Side(boolean write) {
+            this.write = write;
+        }
+
+        /**
+         * 非阻塞加锁，以看门狗租期加锁并自动续期
+         *
+         * @return 是否成功
+         */
+        public boolean tryLock() {
+            return tryLock(0, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * 非阻塞加锁
+         *
+         * @param maxLockTime 最大持有锁时间，小于等于0时由看门狗续期
+         * @param timeUnit    时间单位
+         * @return 是否成功
+         */
+        public boolean tryLock(long maxLockTime, TimeUnit timeUnit) {
+            return attempt(lease(maxLockTime, timeUnit), maxLockTime <= 0) == null;
+        }
+
+        /**
+         * 阻塞加锁，锁释放时通过通知唤醒
+         *
+         * @param waitMaxTime 等待超时时间
+         * @param maxLockTime 最大持有锁时间，小于等于0时由看门狗续期
+         * @param timeUnit    时间单位
+         * @return 是否成功
+         */
+        public boolean lock(long waitMaxTime, long maxLockTime, TimeUnit timeUnit) {
+            long deadline = System.currentTimeMillis() + timeUnit.toMillis(waitMaxTime);
+            long lease = lease(maxLockTime, timeUnit);
+            try {
+                return NotifyingWait.await(notifier, key, deadline, () -> attempt(lease, maxLockTime <= 0));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        /**
+         * 释放一次重入
+         *
+         * @return 是否为持有者
+         */
+        public boolean unlock() {
+            String field = field();
+            Long result = redisTemplate.execute(UNLOCK, LockScripts.ARGS_SERIALIZER, null,
+                    Collections.singletonList(key), field, LockScripts.RELEASE_CHANNEL, LockScripts.releaseMessage(key));
+            if (result == null || result == 1) {
+                watchdog.unwatch(key, field);
+            }
+            return result != null;
+        }
+
+        private Long attempt(long lease, boolean watch) {
+            String owner = LockScripts.owner();
+            List<String> keys = Collections.singletonList(key);
+            Long ttl = write
+                    ? redisTemplate.execute(WRITE_LOCK, LockScripts.ARGS_SERIALIZER, null, keys, String.valueOf(lease), owner + ":w")
+                    : redisTemplate.execute(READ_LOCK, LockScripts.ARGS_SERIALIZER, null, keys, String.valueOf(lease), owner + ":r", owner + ":w");
+            if (ttl == null && watch) {
+                watchdog.watch(key, field(), Thread.currentThread());
+            }
+            return ttl;
+        }
+
+        private long lease(long maxLockTime, TimeUnit timeUnit) {
+            return maxLockTime > 0 ? timeUnit.toMillis(maxLockTime) : watchdog.getLease();
+        }
+
+        private String field() {
+            return LockScripts.owner() + (write ? ":w" : ":r");
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.cyitce.util.redis.lock;
+
+import com.cyitce.util.redis.notify.RedisNotifier;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @version 1.0
+ * 分布式计数信号量。每个被获取的许可都有租期，以许可ID为成员、到期时间为分数保存在ZSet中，
+ * 持有者宕机后许可在租期结束时自动回收；许可总数保存在 name:semaphore:permits 中。
+ * 每个操作为一次原子脚本调用，释放许可时发布通知唤醒等待者。到期判断使用调用方传入的时间，各实例时钟需基本一致。
+ */
+public class RedisSemaphore {
+
+    public static final String SEMAPHORE = ":semaphore";
+    public static final String PERMITS = ":semaphore:permits";
+
+    /**
+     * KEYS[1]=许可ZSet，KEYS[2]=许可总数，ARGV[1]=当前时间ms，ARGV[2]=到期时间ms，ARGV[3]=许可ID；
+     * 成功返回nil，失败返回最早到期的许可剩余时间ms，未设置许可总数时返回-1
+     */
+    static final RedisScript<Long> ACQUIRE = new DefaultRedisScript<>(
+            "redis.call('zremrangebyscore', KEYS[1], '-inf', ARGV[1]); " +
+                    "local permits = tonumber(redis.call('get', KEYS[2]) or '0'); " +
+                    "if redis.call('zcard', KEYS[1]) < permits then " +
+                    "redis.call('zadd', KEYS[1], ARGV[2], ARGV[3]); " +
+                    "return nil; " +
+                    "end; " +
+                    "local first = redis.call('zrange', KEYS[1], 0, 0, 'WITHSCORES'); " +
+                    "if first[2] == nil then " +
+                    "return -1; " +
+                    "end; " +
+                    "return tonumber(first[2]) - tonumber(ARGV[1]);", Long.class);
+
+    /**
+     * KEYS[1]=许可ZSet，ARGV[1]=许可ID，ARGV[2]=通知通道，ARGV[3]=通知内容；释放成功返回1，许可不存在返回0
+     */
+    static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('zrem', KEYS[1], ARGV[1]) == 1 then " +
+                    "redis.call('publish', ARGV[2], cjson.encode(ARGV[3])); " +
+                    "return 1; " +
+                    "end; " +
+                    "return 0;", Long.class);
+
+    /**
+     * KEYS[1]=许可ZSet，ARGV[1]=当前时间ms，ARGV[2]=新的到期时间ms，ARGV[3]=许可ID；成功返回1，许可已过期返回0
+     */
+    static final RedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "local score = redis.call('zscore', KEYS[1], ARGV[3]); " +
+                    "if score == false or tonumber(score) <= tonumber(ARGV[1]) then " +
+                    "return 0; " +
+                    "end; " +
+                    "redis.call('zadd', KEYS[1], 'XX', ARGV[2], ARGV[3]); " +
+                    "return 1;", Long.class);
+
+    /**
+     * KEYS[1]=许可ZSet，KEYS[2]=许可总数，ARGV[1]=当前时间ms；返回可用许可数
+     */
+    static final RedisScript<Long> AVAILABLE = new DefaultRedisScript<>(
+            "redis.call('zremrangebyscore', KEYS[1], '-inf', ARGV[1]); " +
+                    "return tonumber(redis.call('get', KEYS[2]) or '0') - redis.call('zcard', KEYS[1]);", Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisNotifier notifier;
+    private final String name;
+    private final List<String> keys;
+
+    public RedisSemaphore(RedisTemplate<String, Object> redisTemplate, RedisNotifier notifier, String name) {
+        this.redisTemplate = redisTemplate;
+        this.notifier = notifier;
+        this.name = name;
+        this.keys = Arrays.asList(name + SEMAPHORE, name + PERMITS);
+    }
+
+    /**
+     * 设置许可总数，已设置时不修改
+     *
+     * @param permits 许可总数
+     * @return 是否设置成功
+     */
+    public boolean trySetPermits(int permits) {
+        byte[] rawKey = keys.get(1).getBytes(StandardCharsets.UTF_8);
+        byte[] value = String.valueOf(permits).getBytes(StandardCharsets.UTF_8);
+        return Boolean.TRUE.equals(redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.setNX(rawKey, value)));
+    }
+
+    /**
+     * 非阻塞获取一个许可
+     *
+     * @param lease    许可租期
+     * @param timeUnit 时间单位
+     * @return 许可ID，用于释放与续期；没有可用许可时返回null
+     */
+    public String tryAcquire(long lease, TimeUnit timeUnit) {
+        String permitId = UUID.randomUUID().toString();
+        return attempt(permitId, timeUnit.toMillis(lease)) == null ? permitId : null;
+    }
+
+    /**
+     * 阻塞获取一个许可，有许可释放时通过通知唤醒
+     *
+     * @param waitMaxTime 等待超时时间
+     * @param lease       许可租期
+     * @param timeUnit    时间单位
+     * @return 许可ID，超时返回null
+     */
+    public String acquire(long waitMaxTime, long lease, TimeUnit timeUnit) {
+        String permitId = UUID.randomUUID().toString();
+        long leaseMillis = timeUnit.toMillis(lease);
+        try {
+            return NotifyingWait.await(notifier, keys.get(0), System.currentTimeMillis() + timeUnit.toMillis(waitMaxTime),
+                    () -> attempt(permitId, leaseMillis)) ? permitId : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * 释放许可
+     *
+     * @param permitId 许可ID
+     * @return 是否释放成功，许可已过期时返回false
+     */
+    public boolean release(String permitId) {
+        Long result = redisTemplate.execute(RELEASE, LockScripts.ARGS_SERIALIZER, null, keys.subList(0, 1),
+                permitId, LockScripts.RELEASE_CHANNEL, LockScripts.releaseMessage(keys.get(0)));
+        return result != null && result == 1;
+    }
+
+    /**
+     * 续期许可
+     *
+     * @param permitId 许可ID
+     * @param lease    新的租期，从现在开始计算
+     * @param timeUnit 时间单位
+     * @return 是否续期成功，许可已过期时返回false
+     */
+    public boolean renew(String permitId, long lease, TimeUnit timeUnit) {
+        long now = System.currentTimeMillis();
+        Long result = redisTemplate.execute(RENEW, LockScripts.ARGS_SERIALIZER, null, keys.subList(0, 1),
+                String.valueOf(now), String.valueOf(now + timeUnit.toMillis(lease)), permitId);
+        return result != null && result == 1;
+    }
+
+    /**
+     * 当前可用许可数
+     *
+     * @return long
+     */
+    public long availablePermits() {
+        Long result = redisTemplate.execute(AVAILABLE, LockScripts.ARGS_SERIALIZER, null, keys,
+                String.valueOf(System.currentTimeMillis()));
+        return result == null ? 0 : result;
+    }
+
+    /**
+     * 删除信号量及其许可总数
+     */
+    public void delete() {
+        redisTemplate.delete(keys);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private Long attempt(String permitId, long lease) {
+        long now = System.currentTimeMillis();
+        return redisTemplate.execute(ACQUIRE, LockScripts.ARGS_SERIALIZER, null, keys,
+                String.valueOf(now), String.valueOf(now + lease), permitId);
+    }
+}
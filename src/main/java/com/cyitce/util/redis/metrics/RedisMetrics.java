@@ -0,0 +1,159 @@
+package com.cyitce.util.redis.metrics;
+
+import com.cyitce.util.redis.cache.CacheStatistics;
+import com.cyitce.util.redis.cache.NearCache;
+import com.cyitce.util.redis.configs.RedisUtilProperties;
+import com.cyitce.util.redis.serializer.CompressRedisSerializer;
+import com.cyitce.util.redis.serializer.CompressionStatistics;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * @version 1.0
+ * Redis-Util 指标，基于Micrometer，引入actuator后可通过 /actuator/metrics 查看；容器中没有MeterRegistry时使用内存中的SimpleMeterRegistry。
+ * <ul>
+ *     <li>redis.command：RedisUtil各方法耗时（含百分位），tag command</li>
+ *     <li>redis.command.errors：RedisUtil各方法异常次数，tag command、exception</li>
+ *     <li>redis.payload.size：读写的Value字节数分布，tag direction</li>
+ *     <li>redis.compression.*：序列化与压缩累计统计</li>
+ *     <li>redis.near_cache.requests：两级缓存各级命中统计</li>
+ *     <li>redis.result_cache.*：各ResultCache方法的命中、等待锁、加载耗时</li>
+ * </ul>
+ * 计时器与计数器按方法首次记录时创建并缓存，之后记录时只做Map查找，不创建lambda。
+ * RedisUtil方法的计时依赖AOP代理，代理本身会为每次调用创建JoinPoint，关闭指标时不注册代理，见RedisUtilMetricsAspect。
+ */
+@Component
+public class RedisMetrics {
+
+    private static final Function<Method, Map<Class<?>, Counter>> NEW_ERROR_COUNTERS = m -> new ConcurrentHashMap<>();
+
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final double[] percentiles;
+    private final boolean histogram;
+    private final Map<Method, Timer> commandTimers = new ConcurrentHashMap<>();
+    private final Map<Method, Map<Class<?>, Counter>> errorCounters = new ConcurrentHashMap<>();
+    private final Map<String, ResultCacheMeters> resultCacheMeters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RedisMetrics(ObjectProvider<MeterRegistry> registry, RedisUtilProperties properties,
+                        ObjectProvider<CompressRedisSerializer> serializer, NearCache nearCache) {
+        this.registry = registry.getIfAvailable(SimpleMeterRegistry::new);
+        this.enabled = properties.getMetrics().isEnabled();
+        this.percentiles = properties.getMetrics().getPercentiles();
+        this.histogram = properties.getMetrics().isHistogram();
+        if (enabled) {
+            serializer.ifAvailable(this::bindSerializer);
+            bindNearCache(nearCache.statistics());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    /**
+     * 记录一次RedisUtil方法调用
+     *
+     * @param method RedisUtil方法
+     * @param nanos  耗时ns
+     */
+    public void recordCommand(Method method, long nanos) {
+        Timer timer = commandTimers.get(method);
+        if (timer == null) {
+            timer = commandTimers.computeIfAbsent(method, m -> Timer.builder("redis.command")
+                    .tag("command", m.getName())
+                    .description("RedisUtil operation latency")
+                    .publishPercentiles(percentiles)
+                    .publishPercentileHistogram(histogram)
+                    .register(registry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次RedisUtil方法异常
+     *
+     * @param method RedisUtil方法
+     * @param error  异常
+     */
+    public void recordError(Method method, Throwable error) {
+        Map<Class<?>, Counter> counters = errorCounters.get(method);
+        if (counters == null) {
+            counters = errorCounters.computeIfAbsent(method, NEW_ERROR_COUNTERS);
+        }
+        Counter counter = counters.get(error.getClass());
+        if (counter == null) {
+            counter = counters.computeIfAbsent(error.getClass(), type -> Counter.builder("redis.command.errors")
+                    .tag("command", method.getName())
+                    .tag("exception", type.getName())
+                    .description("RedisUtil operation errors")
+                    .register(registry));
+        }
+        counter.increment();
+    }
+
+    /**
+     * 获取ResultCache方法的指标，未启用时返回空操作实现
+     *
+     * @param methodName 方法的全限定名，如 com.example.UserService.find
+     * @return ResultCacheMeters
+     */
+    public ResultCacheMeters resultCache(String methodName) {
+        if (!enabled) {
+            return ResultCacheMeters.NONE;
+        }
+        return resultCacheMeters.computeIfAbsent(methodName, m -> new ResultCacheMeters(registry, m, percentiles, histogram));
+    }
+
+    private void bindSerializer(CompressRedisSerializer serializer) {
+        CompressionStatistics statistics = serializer.statistics();
+        FunctionCounter.builder("redis.compression.values", statistics, CompressionStatistics::getSerialized)
+                .tag("compressed", "any").description("Serialized values").register(registry);
+        FunctionCounter.builder("redis.compression.values", statistics, CompressionStatistics::getCompressed)
+                .tag("compressed", "true").description("Serialized values").register(registry);
+        FunctionCounter.builder("redis.compression.bytes", statistics, CompressionStatistics::getRawBytes)
+                .tag("stage", "raw").baseUnit("bytes").register(registry);
+        FunctionCounter.builder("redis.compression.bytes", statistics, CompressionStatistics::getStoredBytes)
+                .tag("stage", "stored").baseUnit("bytes").register(registry);
+        DistributionSummary written = DistributionSummary.builder("redis.payload.size").tag("direction", "write")
+                .baseUnit("bytes").publishPercentiles(percentiles).register(registry);
+        DistributionSummary read = DistributionSummary.builder("redis.payload.size").tag("direction", "read")
+                .baseUnit("bytes").publishPercentiles(percentiles).register(registry);
+        serializer.setPayloadListener(new CompressRedisSerializer.PayloadListener() {
+            @Override
+            public void written(int bytes) {
+                written.record(bytes);
+            }
+
+            @Override
+            public void read(int bytes) {
+                read.record(bytes);
+            }
+        });
+    }
+
+    private void bindNearCache(CacheStatistics statistics) {
+        FunctionCounter.builder("redis.near_cache.requests", statistics, CacheStatistics::getL1Hit)
+                .tags("level", "l1", "result", "hit").register(registry);
+        FunctionCounter.builder("redis.near_cache.requests", statistics, CacheStatistics::getL1Miss)
+                .tags("level", "l1", "result", "miss").register(registry);
+        FunctionCounter.builder("redis.near_cache.requests", statistics, CacheStatistics::getL2Hit)
+                .tags("level", "l2", "result", "hit").register(registry);
+        FunctionCounter.builder("redis.near_cache.requests", statistics, CacheStatistics::getL2Miss)
+                .tags("level", "l2", "result", "miss").register(registry);
+    }
+}
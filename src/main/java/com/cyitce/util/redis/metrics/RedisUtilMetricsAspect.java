@@ -0,0 +1,53 @@
+package com.cyitce.util.redis.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * @version 1.0
+ * @see RedisMetrics
+ * 记录RedisUtil公开方法的耗时与异常，不包含获取RedisTemplate、Operations等不访问Redis的方法。
+ * 返回流、future的方法只记录创建耗时。RedisUtil内部的相互调用不经过代理，不会重复记录。
+ * 代理每次调用都会创建JoinPoint与参数数组，因此仅在 redis-util.metrics.enabled 为true（默认）时注册该切面，关闭后RedisUtil不被代理。
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "redis-util.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RedisUtilMetricsAspect {
+
+    private final RedisMetrics metrics;
+
+    @Autowired
+    public RedisUtilMetricsAspect(RedisMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Pointcut("execution(public * com.cyitce.util.redis.RedisUtil.*(..))"
+            + " && !execution(* com.cyitce.util.redis.RedisUtil.opsFor*(..))"
+            + " && !execution(* com.cyitce.util.redis.RedisUtil.redisTemplate())"
+            + " && !execution(* com.cyitce.util.redis.RedisUtil.lockWatchdog())"
+            + " && !execution(* com.cyitce.util.redis.RedisUtil.batch())"
+            + " && !execution(* com.cyitce.util.redis.RedisUtil.destroy())"
+            + " && !execution(* com.cyitce.util.redis.RedisUtil.set*(com.cyitce.util.redis..*))")
+    public void redisUtilPointcut() {
+    }
+
+    @Around("redisUtilPointcut()")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            metrics.recordError(((MethodSignature) joinPoint.getSignature()).getMethod(), e);
+            throw e;
+        } finally {
+            metrics.recordCommand(((MethodSignature) joinPoint.getSignature()).getMethod(), System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.cyitce.util.redis.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @version 1.0
+ * 单个ResultCache方法的指标：命中/未命中次数与命中率、等待锁或等待其他线程加载的耗时、执行原方法的耗时。
+ * 创建后在每次调用中直接使用，记录时不分配对象。
+ */
+public class ResultCacheMeters {
+
+    /**
+     * 未启用指标时使用，记录操作均为空操作
+     */
+    public static final ResultCacheMeters NONE = new ResultCacheMeters(new CompositeMeterRegistry(), "none", new double[0], false);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer lockWait;
+    private final Timer load;
+
+    ResultCacheMeters(MeterRegistry registry, String method, double[] percentiles, boolean histogram) {
+        this.hits = Counter.builder("redis.result_cache.requests").tag("method", method).tag("result", "hit")
+                .description("ResultCache lookups").register(registry);
+        this.misses = Counter.builder("redis.result_cache.requests").tag("method", method).tag("result", "miss")
+                .description("ResultCache lookups").register(registry);
+        this.lockWait = Timer.builder("redis.result_cache.lock.wait").tag("method", method)
+                .description("Time spent acquiring the load lock or waiting for another loader")
+                .publishPercentiles(percentiles).publishPercentileHistogram(histogram).register(registry);
+        this.load = Timer.builder("redis.result_cache.load").tag("method", method)
+                .description("Time spent executing the cached method on a miss")
+                .publishPercentiles(percentiles).publishPercentileHistogram(histogram).register(registry);
+        Gauge.builder("redis.result_cache.hit.ratio", this, ResultCacheMeters::hitRatio).tag("method", method)
+                .description("Hit ratio since startup").register(registry);
+    }
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    /**
+     * @param nanos 等待耗时ns
+     */
+    public void lockWait(long nanos) {
+        lockWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param millis 执行耗时ms
+     */
+    public void load(long millis) {
+        load.record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 启动以来的命中率
+     *
+     * @return [0, 1]，无请求时为0
+     */
+    public double hitRatio() {
+        double hit = hits.count();
+        double total = hit + misses.count();
+        return total == 0 ? 0 : hit / total;
+    }
+}
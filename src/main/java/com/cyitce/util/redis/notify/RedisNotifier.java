@@ -0,0 +1,146 @@
+package com.cyitce.util.redis.notify;
+
+import com.cyitce.util.redis.RedisUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * @version 1.0
+ * 基于Redis Pub/Sub的跨实例通知工具，消息体为 实例ID + 分隔符 + 内容，接收方可据此忽略本实例发出的消息。
+ */
+@Component
+public class RedisNotifier {
+
+    public static final String CHANNEL_PREFIX = "RedisUtil:notify:";
+    public static final char SEPARATOR = '|';
+    private final Logger logger = LoggerFactory.getLogger(RedisNotifier.class);
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisMessageListenerContainer container;
+    private final Map<String, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+    private final Set<String> waitTopics = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public RedisNotifier(RedisTemplate<String, Object> redisTemplate, RedisMessageListenerContainer container) {
+        this.redisTemplate = redisTemplate;
+        this.container = container;
+    }
+
+    /**
+     * 发布通知
+     *
+     * @param topic   主题
+     * @param message 内容
+     */
+    public void publish(String topic, String message) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL_PREFIX + topic, RedisUtil.INSTANCE_ID + SEPARATOR + message);
+        } catch (RuntimeException e) {
+            logger.warn("publish {} failed: {}", topic, e.getMessage());
+        }
+    }
+
+    /**
+     * 订阅通知
+     *
+     * @param topic       主题
+     * @param listener    回调，参数为通知内容
+     * @param receiveSelf 是否接收本实例发出的通知
+     */
+    public void subscribe(String topic, Consumer<String> listener, boolean receiveSelf) {
+        container.addMessageListener((message, pattern) -> {
+            Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (body == null) {
+                return;
+            }
+            String text = body.toString();
+            int index = text.indexOf(SEPARATOR);
+            if (index < 0) {
+                return;
+            }
+            if (!receiveSelf && RedisUtil.INSTANCE_ID.equals(text.substring(0, index))) {
+                return;
+            }
+            listener.accept(text.substring(index + 1));
+        }, new ChannelTopic(CHANNEL_PREFIX + topic));
+    }
+
+    /**
+     * 预先订阅等待者使用的主题，应在Bean初始化时调用。
+     * 订阅请求是异步发出的，首次使用时才订阅会导致第一个等待者可能错过通知、一直等到超时
+     *
+     * @param topic 主题
+     */
+    public void prepareWaiters(String topic) {
+        if (waitTopics.add(topic)) {
+            subscribe(topic, m -> signal(topic, m), true);
+        }
+    }
+
+    /**
+     * 注册一个等待者，当指定主题上发布了指定内容时被唤醒。
+     * 应在检查条件之前注册，避免错过通知；使用完毕后需关闭。主题应事先通过prepareWaiters订阅。
+     *
+     * @param topic   主题
+     * @param message 等待的通知内容
+     * @return Waiter
+     */
+    public Waiter waiter(String topic, String message) {
+        prepareWaiters(topic);
+        Waiter waiter = new Waiter(topic + SEPARATOR + message);
+        waiters.computeIfAbsent(waiter.id, k -> ConcurrentHashMap.newKeySet()).add(waiter);
+        return waiter;
+    }
+
+    private void signal(String topic, String message) {
+        Set<Waiter> set = waiters.remove(topic + SEPARATOR + message);
+        if (set != null) {
+            for (Waiter waiter : set) {
+                waiter.latch.countDown();
+            }
+        }
+    }
+
+    /**
+     * 等待者
+     */
+    public final class Waiter implements AutoCloseable {
+        private final String id;
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        private Waiter(String id) {
+            this.id = id;
+        }
+
+        /**
+         * 阻塞直到被唤醒或超时
+         *
+         * @param timeout 最大等待时间
+         * @param unit    时间单位
+         * @return 是否被唤醒
+         * @throws InterruptedException 线程被中断
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            return latch.await(timeout, unit);
+        }
+
+        @Override
+        public void close() {
+            waiters.computeIfPresent(id, (k, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+}
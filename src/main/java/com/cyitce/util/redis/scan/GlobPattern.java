@@ -0,0 +1,44 @@
+package com.cyitce.util.redis.scan;
+
+import java.util.regex.Pattern;
+
+/**
+ * @version 1.0
+ * Redis的glob模式（*、?、[...]、\转义）与正则表达式的转换，用于在本地缓存中匹配按模式删除的键。
+ */
+public final class GlobPattern {
+
+    private GlobPattern() {
+    }
+
+    /**
+     * 将Redis的glob模式转换为正则表达式
+     *
+     * @param glob 匹配字符
+     * @return Pattern
+     */
+    public static Pattern compile(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() + 8);
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else if (c == '\\' && i + 1 < glob.length()) {
+                regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+            } else if (c == '[' && glob.indexOf(']', i + 2) > 0 && !"[^]".equals(glob.substring(i, glob.indexOf(']', i + 2) + 1))) {
+                int end = glob.indexOf(']', i + 2);
+                String set = glob.substring(i + 1, end);
+                boolean negate = set.startsWith("^");
+                regex.append('[').append(negate ? "^" : "")
+                        .append((negate ? set.substring(1) : set).replace("\\", "\\\\").replace("[", "\\[").replace("&", "\\&"))
+                        .append(']');
+                i = end;
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+}
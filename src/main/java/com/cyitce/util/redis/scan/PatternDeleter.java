@@ -0,0 +1,97 @@
+package com.cyitce.util.redis.scan;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * @version 1.0
+ * 按模式批量删除：通过SCAN逐页获取键，每批以一次UNLINK删除（Redis在后台线程释放内存），可限制每秒删除数量，
+ * 在后台线程中执行并报告进度。取消返回的future后在当前批次完成时停止。
+ */
+public final class PatternDeleter {
+
+    private PatternDeleter() {
+    }
+
+    /**
+     * 异步删除所有匹配的键
+     *
+     * @param redisTemplate    RedisTemplate
+     * @param keys             待删除的键流，删除结束后关闭
+     * @param batchSize        每批删除的键数量
+     * @param maxKeysPerSecond 每秒最多删除的键数量，小于等于0时不限制
+     * @param progress         每批删除后回调已删除的总数，可为null
+     * @return 删除的键数量
+     */
+    public static CompletableFuture<Long> delete(RedisTemplate<String, Object> redisTemplate, Stream<String> keys,
+                                                 int batchSize, long maxKeysPerSecond, LongConsumer progress) {
+        if (batchSize <= 0) {
+            keys.close();
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        Holder.EXECUTOR.execute(() -> {
+            long start = System.nanoTime();
+            long deleted = 0;
+            long processed = 0;
+            Throwable error = null;
+            try (Stream<String> stream = keys) {
+                Iterator<String> iterator = stream.iterator();
+                List<String> batch = new ArrayList<>(batchSize);
+                while (iterator.hasNext() && !future.isDone()) {
+                    batch.add(iterator.next());
+                    if (batch.size() < batchSize && iterator.hasNext()) {
+                        continue;
+                    }
+                    Long count = redisTemplate.unlink(batch);
+                    deleted += count == null ? 0 : count;
+                    processed += batch.size();
+                    batch.clear();
+                    if (progress != null) {
+                        progress.accept(deleted);
+                    }
+                    if (maxKeysPerSecond > 0) {
+                        // 按已处理的数量计算应耗费的时间，提前完成时等待；已不存在的键同样计入，避免空删时不限速
+                        long expected = TimeUnit.SECONDS.toNanos(processed) / maxKeysPerSecond;
+                        long sleep = expected - (System.nanoTime() - start);
+                        if (sleep > 0) {
+                            TimeUnit.NANOSECONDS.sleep(sleep);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = e;
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            // 键流（SCAN游标）关闭后再完成
+            if (error == null) {
+                future.complete(deleted);
+            } else {
+                future.completeExceptionally(error);
+            }
+        });
+        return future;
+    }
+
+    private static final class Holder {
+        private static final ExecutorService EXECUTOR;
+
+        static {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("redis-pattern-delete-");
+            threadFactory.setDaemon(true);
+            EXECUTOR = Executors.newCachedThreadPool(threadFactory);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.cyitce.util.redis.scan;
+
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ConvertingCursor;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * @version 1.0
+ * 基于SCAN游标的惰性流。每次只从Redis拉取一页，内存占用与页大小相关而与结果总数无关；
+ * 流持有连接，使用完毕（包括提前终止）后必须关闭，建议使用try-with-resources。
+ * 需要并行处理时可调用 parallel()，元素按批从游标中取出后分发给ForkJoin线程，游标本身仍按页顺序读取。
+ */
+public final class ScanStreams {
+
+    private static final Object END = new Object();
+
+    private ScanStreams() {
+    }
+
+    /**
+     * 将游标包装为流，关闭流时关闭游标
+     *
+     * @param cursor 游标
+     * @param <T>    元素类型
+     * @return Stream
+     */
+    public static <T> Stream<T> stream(Cursor<T> cursor) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.NONNULL), false)
+                .onClose(() -> close(cursor));
+    }
+
+    /**
+     * 单节点扫描匹配的键
+     *
+     * @param redisTemplate RedisTemplate
+     * @param pattern       匹配字符
+     * @param batchSize     每页数量（SCAN COUNT）
+     * @return 键流
+     */
+    public static Stream<String> keys(RedisTemplate<String, Object> redisTemplate, String pattern, int batchSize) {
+        RedisSerializer<String> keySerializer = keySerializer(redisTemplate);
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+        Cursor<String> cursor = redisTemplate.executeWithStickyConnection(
+                connection -> new ConvertingCursor<>(connection.scan(options), keySerializer::deserialize));
+        return stream(cursor);
+    }
+
+    /**
+     * 集群模式下并行扫描所有主节点，各节点结果合并为一个流；结果无序，队列容量为 batchSize × 主节点数
+     *
+     * @param redisTemplate RedisTemplate
+     * @param pattern       匹配字符
+     * @param batchSize     每页数量（SCAN COUNT）
+     * @return 键流
+     */
+    public static Stream<String> clusterKeys(RedisTemplate<String, Object> redisTemplate, String pattern, int batchSize) {
+        RedisSerializer<String> keySerializer = keySerializer(redisTemplate);
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+        RedisClusterConnection connection = connectionFactory(redisTemplate).getClusterConnection();
+        List<RedisClusterNode> masters = new ArrayList<>();
+        try {
+            for (RedisClusterNode node : connection.clusterGetNodes()) {
+                if (node.isMaster()) {
+                    masters.add(node);
+                }
+            }
+        } catch (RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+        if (masters.isEmpty()) {
+            connection.close();
+            return Stream.empty();
+        }
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(Math.max(1, batchSize) * masters.size());
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("redis-cluster-scan-");
+        threadFactory.setDaemon(true);
+        ExecutorService executor = Executors.newFixedThreadPool(masters.size(), threadFactory);
+        for (RedisClusterNode node : masters) {
+            executor.execute(() -> {
+                Object end = END;
+                try (Cursor<byte[]> cursor = connection.scan(node, options)) {
+                    while (cursor.hasNext()) {
+                        queue.put(keySerializer.deserialize(cursor.next()));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (IOException | RuntimeException e) {
+                    end = e instanceof IOException ? new UncheckedIOException((IOException) e) : e;
+                }
+                try {
+                    queue.put(end);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        Iterator<String> iterator = new Iterator<String>() {
+            private int remaining = masters.size();
+            private String next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && remaining > 0) {
+                    Object item;
+                    try {
+                        item = queue.take();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("cluster scan interrupted", e);
+                    }
+                    if (item == END) {
+                        remaining--;
+                    } else if (item instanceof RuntimeException) {
+                        throw (RuntimeException) item;
+                    } else {
+                        next = (String) item;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String key = next;
+                next = null;
+                return key;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    executor.shutdownNow();
+                    connection.close();
+                });
+    }
+
+    /**
+     * 构造扫描参数
+     *
+     * @param pattern   匹配字符，为null时不过滤
+     * @param batchSize 每页数量（SCAN COUNT）
+     * @return ScanOptions
+     */
+    public static ScanOptions options(String pattern, int batchSize) {
+        ScanOptions.ScanOptionsBuilder builder = ScanOptions.scanOptions().count(batchSize);
+        if (pattern != null) {
+            builder.match(pattern);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 分块读取整个List，每块一次LRANGE。读取期间List被修改时，块之间可能出现重复或遗漏
+     *
+     * @param redisTemplate RedisTemplate
+     * @param key           键
+     * @param chunkSize     每块数量
+     * @return 元素流
+     */
+    public static Stream<Object> listRange(RedisTemplate<String, Object> redisTemplate, String key, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        Iterator<Object> iterator = new Iterator<Object>() {
+            private long start;
+            private Iterator<Object> chunk = Collections.emptyIterator();
+            private boolean last;
+
+            @Override
+            public boolean hasNext() {
+                while (!chunk.hasNext() && !last) {
+                    List<Object> values = redisTemplate.opsForList().range(key, start, start + chunkSize - 1);
+                    int size = values == null ? 0 : values.size();
+                    start += size;
+                    last = size < chunkSize;
+                    chunk = size == 0 ? Collections.emptyIterator() : values.iterator();
+                }
+                return chunk.hasNext();
+            }
+
+            @Override
+            public Object next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return chunk.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * 是否为集群模式
+     *
+     * @param redisTemplate RedisTemplate
+     * @return boolean
+     */
+    public static boolean isCluster(RedisTemplate<String, Object> redisTemplate) {
+        RedisConnection connection = connectionFactory(redisTemplate).getConnection();
+        try {
+            return connection instanceof RedisClusterConnection;
+        } finally {
+            connection.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisSerializer<String> keySerializer(RedisTemplate<String, Object> redisTemplate) {
+        return (RedisSerializer<String>) redisTemplate.getKeySerializer();
+    }
+
+    private static RedisConnectionFactory connectionFactory(RedisTemplate<String, Object> redisTemplate) {
+        RedisConnectionFactory factory = redisTemplate.getConnectionFactory();
+        if (factory == null) {
+            throw new IllegalStateException("RedisConnectionFactory is required");
+        }
+        return factory;
+    }
+
+    private static void close(Cursor<?> cursor) {
+        try {
+            cursor.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
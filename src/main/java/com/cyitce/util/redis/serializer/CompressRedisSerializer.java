@@ -0,0 +1,223 @@
+package com.cyitce.util.redis.serializer;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * @version 1.0
+ * @see CompressionCodec
+ * 按阈值压缩的Value序列化器包装。仅当序列化结果超过阈值且压缩后更小时才压缩，
+ * 压缩数据格式为：算法标识(1字节) + 原始长度(4字节) + 压缩数据；未压缩的数据原样存储，因此小数据与旧数据均可正常读取。
+ * Deflater、Inflater与压缩缓冲区按线程复用，LZ4的压缩器与解压器线程安全，全局共享。
+ */
+public class CompressRedisSerializer implements RedisSerializer<Object> {
+
+    private static final int HEADER_LENGTH = 5;
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+    private static final LZ4Compressor LZ4_COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor LZ4_DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+    private final RedisSerializer<Object> delegate;
+    private final boolean enabled;
+    private final int threshold;
+    private final CompressionCodec codec;
+    private final CompressionStatistics statistics = new CompressionStatistics();
+    private final ThreadLocal<Deflater> deflater;
+    private final ThreadLocal<Inflater> inflater = ThreadLocal.withInitial(Inflater::new);
+    private final ThreadLocal<byte[]> buffer = ThreadLocal.withInitial(() -> new byte[8192]);
+    private volatile PayloadListener payloadListener;
+
+    /**
+     * @param delegate  实际的序列化器
+     * @param enabled   是否压缩写入的数据，关闭时仍可读取已压缩的数据
+     * @param threshold 压缩阈值，字节
+     * @param codec     压缩算法
+     */
+    public CompressRedisSerializer(RedisSerializer<Object> delegate, boolean enabled, int threshold, CompressionCodec codec) {
+        this.delegate = delegate;
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.codec = codec;
+        this.deflater = ThreadLocal.withInitial(() -> new Deflater(codec.level()));
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] raw = delegate.serialize(value);
+        if (raw == null) {
+            return null;
+        }
+        byte[] bytes = enabled && raw.length >= threshold ? compress(raw) : null;
+        PayloadListener listener = payloadListener;
+        if (bytes == null) {
+            statistics.record(raw.length, raw.length, false);
+            if (listener != null) {
+                listener.written(raw.length);
+            }
+            return raw;
+        }
+        statistics.record(raw.length, bytes.length, true);
+        if (listener != null) {
+            listener.written(bytes.length);
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return delegate.deserialize(bytes);
+        }
+        PayloadListener listener = payloadListener;
+        if (listener != null) {
+            listener.read(bytes.length);
+        }
+        CompressionCodec compressed = bytes.length >= HEADER_LENGTH ? CompressionCodec.of(bytes[0]) : null;
+        if (compressed != null) {
+            return delegate.deserialize(decompress(compressed, bytes));
+        }
+        return delegate.deserialize(bytes);
+    }
+
+    /**
+     * 设置数据大小监听器，用于记录读写的数据大小分布
+     *
+     * @param payloadListener 监听器，为null时不记录
+     */
+    public void setPayloadListener(PayloadListener payloadListener) {
+        this.payloadListener = payloadListener;
+    }
+
+    /**
+     * 压缩，压缩后不小于原数据时返回null
+     */
+    private byte[] compress(byte[] raw) {
+        int max = raw.length - HEADER_LENGTH;
+        if (max <= 0) {
+            return null;
+        }
+        byte[] buf = buffer(max);
+        int length = codec == CompressionCodec.LZ4 ? lz4(raw, buf, max) : deflate(raw, buf, max);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[HEADER_LENGTH + length];
+        bytes[0] = codec.header();
+        bytes[1] = (byte) (raw.length >>> 24);
+        bytes[2] = (byte) (raw.length >>> 16);
+        bytes[3] = (byte) (raw.length >>> 8);
+        bytes[4] = (byte) raw.length;
+        System.arraycopy(buf, 0, bytes, HEADER_LENGTH, length);
+        return bytes;
+    }
+
+    /**
+     * @return 压缩后的长度，超过max时返回-1
+     */
+    private int deflate(byte[] raw, byte[] buf, int max) {
+        Deflater d = deflater.get();
+        d.reset();
+        d.setInput(raw);
+        d.finish();
+        int length = 0;
+        while (!d.finished() && length < max) {
+            length += d.deflate(buf, length, max - length);
+        }
+        return d.finished() ? length : -1;
+    }
+
+    /**
+     * @return 压缩后的长度，超过max时返回-1
+     */
+    private static int lz4(byte[] raw, byte[] buf, int max) {
+        try {
+            return LZ4_COMPRESSOR.compress(raw, 0, raw.length, buf, 0, max);
+        } catch (LZ4Exception e) {
+            return -1;
+        }
+    }
+
+    private byte[] decompress(CompressionCodec compressed, byte[] bytes) {
+        int length = (bytes[1] & 0xff) << 24 | (bytes[2] & 0xff) << 16 | (bytes[3] & 0xff) << 8 | (bytes[4] & 0xff);
+        if (length < 0) {
+            throw new SerializationException("Could not decompress: invalid length " + length);
+        }
+        byte[] raw = new byte[length];
+        if (compressed == CompressionCodec.LZ4) {
+            try {
+                int read = LZ4_DECOMPRESSOR.decompress(bytes, HEADER_LENGTH, raw, 0, length);
+                if (read != bytes.length - HEADER_LENGTH) {
+                    throw new SerializationException("Could not decompress: expected " + (bytes.length - HEADER_LENGTH) + " compressed bytes but read " + read);
+                }
+            } catch (LZ4Exception e) {
+                throw new SerializationException("Could not decompress: " + e.getMessage(), e);
+            }
+            return raw;
+        }
+        Inflater inf = inflater.get();
+        inf.reset();
+        inf.setInput(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+        int n = 0;
+        try {
+            while (n < length) {
+                int read = inf.inflate(raw, n, length - n);
+                if (read == 0 && (inf.finished() || inf.needsInput() || inf.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+        } catch (DataFormatException e) {
+            throw new SerializationException("Could not decompress: " + e.getMessage(), e);
+        }
+        if (n != length) {
+            throw new SerializationException("Could not decompress: expected " + length + " bytes but got " + n);
+        }
+        return raw;
+    }
+
+    /**
+     * 获取当前线程的压缩缓冲区，过大的缓冲区不保留
+     */
+    private byte[] buffer(int size) {
+        byte[] buf = buffer.get();
+        if (buf.length >= size) {
+            return buf;
+        }
+        buf = new byte[size];
+        if (size <= MAX_RETAINED_BUFFER) {
+            buffer.set(buf);
+        }
+        return buf;
+    }
+
+    public CompressionStatistics statistics() {
+        return statistics;
+    }
+
+    /**
+     * 数据大小监听器，在序列化线程中同步调用，实现需足够轻量
+     */
+    public interface PayloadListener {
+
+        /**
+         * 写入Redis的数据大小（压缩后）
+         *
+         * @param bytes 字节数
+         */
+        void written(int bytes);
+
+        /**
+         * 从Redis读取的数据大小（解压前）
+         *
+         * @param bytes 字节数
+         */
+        void read(int bytes);
+    }
+}
@@ -0,0 +1,58 @@
+package com.cyitce.util.redis.serializer;
+
+import java.util.zip.Deflater;
+
+/**
+ * @version 1.0
+ * @see CompressRedisSerializer
+ * 压缩算法。压缩后的数据首字节为算法标识，不会与JSON/Smile/Kryo的首字节冲突，读取时按标识选择算法，与当前配置无关。
+ * LZ4基于lz4-java，压缩与解压速度远高于Deflate，压缩率较低；DEFLATE_*基于JDK自带的Deflate，仅压缩级别不同。
+ */
+public enum CompressionCodec {
+    /**
+     * LZ4，速度优先
+     */
+    LZ4((byte) 0x12, 0),
+    /**
+     * Deflate最快级别，比LZ4慢，压缩率更高
+     */
+    DEFLATE_FAST((byte) 0x10, Deflater.BEST_SPEED),
+    /**
+     * Deflate最高级别，压缩率优先
+     */
+    DEFLATE_BEST((byte) 0x11, Deflater.BEST_COMPRESSION);
+
+    private final byte header;
+    private final int level;
+
+    CompressionCodec(byte header, int level) {
+        this.header = header;
+        this.level = level;
+    }
+
+    public byte header() {
+        return header;
+    }
+
+    /**
+     * Deflate压缩级别，LZ4无意义
+     */
+    public int level() {
+        return level;
+    }
+
+    /**
+     * 根据首字节判断压缩算法
+     *
+     * @param first 首字节
+     * @return 算法，未压缩时返回null
+     */
+    public static CompressionCodec of(byte first) {
+        for (CompressionCodec codec : values()) {
+            if (codec.header == first) {
+                return codec;
+            }
+        }
+        return null;
+    }
+}
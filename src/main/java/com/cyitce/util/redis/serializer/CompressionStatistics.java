@@ -0,0 +1,78 @@
+package com.cyitce.util.redis.serializer;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @version 1.0
+ * @see CompressRedisSerializer
+ * 压缩统计
+ */
+public class CompressionStatistics {
+
+    private final LongAdder serialized = new LongAdder();
+    private final LongAdder compressed = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+
+    void record(int rawLength, int storedLength, boolean isCompressed) {
+        serialized.increment();
+        rawBytes.add(rawLength);
+        storedBytes.add(storedLength);
+        if (isCompressed) {
+            compressed.increment();
+        }
+    }
+
+    /**
+     * 序列化次数
+     */
+    public long getSerialized() {
+        return serialized.sum();
+    }
+
+    /**
+     * 实际压缩的次数
+     */
+    public long getCompressed() {
+        return compressed.sum();
+    }
+
+    /**
+     * 压缩命中率：实际压缩次数 / 序列化次数
+     */
+    public double getCompressedRatio() {
+        long total = getSerialized();
+        return total == 0 ? 0 : (double) getCompressed() / total;
+    }
+
+    /**
+     * 压缩前的总字节数
+     */
+    public long getRawBytes() {
+        return rawBytes.sum();
+    }
+
+    /**
+     * 实际写入的总字节数
+     */
+    public long getStoredBytes() {
+        return storedBytes.sum();
+    }
+
+    /**
+     * 压缩节省的字节数
+     */
+    public long getBytesSaved() {
+        return getRawBytes() - getStoredBytes();
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionStatistics{" +
+                "serialized=" + getSerialized() +
+                ", compressed=" + getCompressed() +
+                ", rawBytes=" + getRawBytes() +
+                ", storedBytes=" + getStoredBytes() +
+                '}';
+    }
+}
@@ -0,0 +1,94 @@
+package com.cyitce.util.redis.serializer;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+
+/**
+ * @version 1.0
+ * @see SerializerFormat
+ * 可选格式的Value序列化器。写入时使用配置的格式，读取时根据首字节识别格式，
+ * 因此切换格式期间新旧格式的数据均可正常读取。
+ */
+public class FormatRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte[] EMPTY_ARRAY = new byte[0];
+    private final SerializerFormat format;
+    private final Jackson2JsonRedisSerializer<Object> jsonSerializer;
+    private final ObjectMapper smileMapper;
+    private final KryoCodec kryoCodec = new KryoCodec();
+
+    public FormatRedisSerializer(SerializerFormat format) {
+        this.format = format;
+        this.jsonSerializer = new Jackson2JsonRedisSerializer<>(Object.class);
+        this.jsonSerializer.setObjectMapper(configure(new ObjectMapper()));
+        this.smileMapper = configure(new ObjectMapper(new SmileFactory()));
+    }
+
+    private static ObjectMapper configure(ObjectMapper objectMapper) {
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        return objectMapper;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return EMPTY_ARRAY;
+        }
+        switch (format) {
+            case SMILE:
+                try {
+                    byte[] body = smileMapper.writeValueAsBytes(value);
+                    byte[] bytes = new byte[body.length + 1];
+                    bytes[0] = SerializerFormat.SMILE.header();
+                    System.arraycopy(body, 0, bytes, 1, body.length);
+                    return bytes;
+                } catch (IOException e) {
+                    throw new SerializationException("Could not write Smile: " + e.getMessage(), e);
+                }
+            case KRYO:
+                try {
+                    return kryoCodec.encode(SerializerFormat.KRYO.header(), value);
+                } catch (RuntimeException e) {
+                    throw new SerializationException("Could not write Kryo: " + e.getMessage(), e);
+                }
+            default:
+                return jsonSerializer.serialize(value);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        switch (SerializerFormat.of(bytes[0])) {
+            case SMILE:
+                try {
+                    return smileMapper.readValue(bytes, 1, bytes.length - 1, Object.class);
+                } catch (IOException e) {
+                    throw new SerializationException("Could not read Smile: " + e.getMessage(), e);
+                }
+            case KRYO:
+                try {
+                    return kryoCodec.decode(bytes, 1);
+                } catch (RuntimeException e) {
+                    throw new SerializationException("Could not read Kryo: " + e.getMessage(), e);
+                }
+            default:
+                return jsonSerializer.deserialize(bytes);
+        }
+    }
+
+    public SerializerFormat getFormat() {
+        return format;
+    }
+}
@@ -0,0 +1,56 @@
+package com.cyitce.util.redis.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Pool;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
+/**
+ * @version 1.0
+ * Kryo编解码，Kryo实例非线程安全，通过对象池复用实例与输出缓冲区。
+ */
+class KryoCodec {
+
+    private static final int BUFFER_SIZE = 512;
+    private final Pool<Holder> pool = new Pool<Holder>(true, false, Runtime.getRuntime().availableProcessors() * 2) {
+        @Override
+        protected Holder create() {
+            return new Holder();
+        }
+    };
+
+    byte[] encode(byte header, Object value) {
+        Holder holder = pool.obtain();
+        try {
+            Output output = holder.output;
+            output.reset();
+            output.writeByte(header);
+            holder.kryo.writeClassAndObject(output, value);
+            return output.toBytes();
+        } finally {
+            pool.free(holder);
+        }
+    }
+
+    Object decode(byte[] bytes, int offset) {
+        Holder holder = pool.obtain();
+        try {
+            return holder.kryo.readClassAndObject(new Input(bytes, offset, bytes.length - offset));
+        } finally {
+            pool.free(holder);
+        }
+    }
+
+    private static final class Holder {
+        private final Kryo kryo = new Kryo();
+        private final Output output = new Output(BUFFER_SIZE, -1);
+
+        private Holder() {
+            kryo.setRegistrationRequired(false);
+            kryo.setReferences(true);
+            kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+        }
+    }
+}
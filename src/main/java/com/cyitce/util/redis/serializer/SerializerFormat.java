@@ -0,0 +1,47 @@
+package com.cyitce.util.redis.serializer;
+
+/**
+ * @version 1.0
+ * @see FormatRedisSerializer
+ * Value序列化格式。除JSON外，其余格式在数据首字节写入格式标识，JSON保持无标识以兼容旧数据。
+ */
+public enum SerializerFormat {
+    /**
+     * 带类型信息的JSON，可读性好，体积较大
+     */
+    JSON((byte) 0),
+    /**
+     * Jackson二进制数据格式Smile，与JSON模型一致，体积更小
+     */
+    SMILE((byte) 0x01),
+    /**
+     * Kryo二进制格式，无需schema，速度最快、体积最小，但可读性差且要求类结构保持兼容
+     */
+    KRYO((byte) 0x02);
+
+    private final byte header;
+
+    SerializerFormat(byte header) {
+        this.header = header;
+    }
+
+    public byte header() {
+        return header;
+    }
+
+    /**
+     * 根据数据首字节判断格式，JSON文本不会以0x01、0x02开头
+     *
+     * @param first 首字节
+     * @return 格式
+     */
+    public static SerializerFormat of(byte first) {
+        if (first == SMILE.header) {
+            return SMILE;
+        }
+        if (first == KRYO.header) {
+            return KRYO;
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,70 @@
+package com.cyitce.util.redis;
+
+import com.cyitce.util.redis.cache.NearCache;
+import com.cyitce.util.redis.hotkey.HotKeyDetector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @version 1.0
+ */
+public class DeleteByPatternTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void invalidateLocalTest() throws Exception {
+        RedisTemplate<String, Object> redisTemplate = Mockito.mock(RedisTemplate.class);
+        RedisConnectionFactory factory = Mockito.mock(RedisConnectionFactory.class);
+        Mockito.when(redisTemplate.getConnectionFactory()).thenReturn(factory);
+        Mockito.when(factory.getConnection()).thenReturn(Mockito.mock(RedisConnection.class));
+        Cursor<String> cursor = Mockito.mock(Cursor.class);
+        Mockito.when(cursor.hasNext()).thenReturn(true, true, false);
+        Mockito.when(cursor.next()).thenReturn("user:1", "user:2");
+        Mockito.when(redisTemplate.executeWithStickyConnection(ArgumentMatchers.any(RedisCallback.class))).thenReturn(cursor);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> unlinked = new ArrayList<>();
+        Mockito.when(redisTemplate.unlink(ArgumentMatchers.<Collection<String>>any())).thenAnswer(invocation -> {
+            // 批次列表在调用后被复用，在此复制
+            unlinked.addAll(invocation.getArgument(0));
+            release.await(1, TimeUnit.SECONDS);
+            return 2L;
+        });
+        NearCache nearCache = Mockito.mock(NearCache.class);
+        HotKeyDetector hotKeyDetector = Mockito.mock(HotKeyDetector.class);
+        RedisUtil redisUtil = new RedisUtil(redisTemplate);
+        redisUtil.setNearCache(nearCache);
+        redisUtil.setHotKeyDetector(hotKeyDetector);
+
+        CompletableFuture<Long> deleted = redisUtil.deleteByPattern("user:*");
+        // 删除开始时立即失效所有实例的本地副本
+        Mockito.verify(nearCache).invalidatePattern("user:*");
+        Mockito.verify(hotKeyDetector).invalidatePattern("user:*");
+        release.countDown();
+        Assertions.assertEquals(2, deleted.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(Arrays.asList("user:1", "user:2"), unlinked);
+        // 删除完成后再失效一次，清除删除期间被重新缓存的副本
+        Mockito.verify(nearCache, Mockito.timeout(1000).times(2)).invalidatePattern("user:*");
+        Mockito.verify(hotKeyDetector, Mockito.timeout(1000).times(2)).invalidatePattern("user:*");
+        InOrder order = Mockito.inOrder(nearCache, redisTemplate);
+        order.verify(nearCache, Mockito.calls(1)).invalidatePattern("user:*");
+        order.verify(redisTemplate).unlink(ArgumentMatchers.<Collection<String>>any());
+        order.verify(nearCache, Mockito.calls(1)).invalidatePattern("user:*");
+        Mockito.verify(cursor).close();
+    }
+}
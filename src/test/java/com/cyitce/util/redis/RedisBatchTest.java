@@ -0,0 +1,65 @@
+package com.cyitce.util.redis;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @version 1.0
+ */
+public class RedisBatchTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, Object> redisTemplate = Mockito.mock(RedisTemplate.class);
+    private final List<Collection<String>> invalidated = new ArrayList<>();
+
+    @Test
+    public void statusCommandTest() {
+        // 管道不返回LTRIM、HMSET的状态回复
+        Mockito.when(redisTemplate.executePipelined(Mockito.any(SessionCallback.class))).thenReturn(Arrays.asList(1L, "v"));
+        RedisBatch.Result result = new RedisBatch(redisTemplate, invalidated::add)
+                .lPush("l", "a")
+                .lTrim("l", 0, 10)
+                .hset("h", Collections.singletonMap("f", "v"))
+                .hget("h", "f")
+                .execute();
+        Assertions.assertEquals(Arrays.asList(1L, null, null, "v"), result.asList());
+        Assertions.assertTrue(invalidated.isEmpty());
+    }
+
+    @Test
+    public void invalidateTest() {
+        Mockito.when(redisTemplate.executePipelined(Mockito.any(SessionCallback.class)))
+                .thenReturn(Arrays.asList(true, 2L, "v", 1L, false));
+        new RedisBatch(redisTemplate, invalidated::add)
+                .setnx("a", 1)
+                .incr("b")
+                .get("c")
+                .delete(Arrays.asList("a", "d"))
+                .setBit("e", 1, true)
+                .execute();
+        Assertions.assertEquals(Collections.singletonList(Arrays.asList("a", "b", "d", "e")), invalidated);
+    }
+
+    @Test
+    public void invalidateOnFailureTest() {
+        Mockito.when(redisTemplate.executePipelined(Mockito.any(SessionCallback.class)))
+                .thenReturn(Collections.singletonList(true))
+                .thenThrow(new IllegalStateException("connection lost"));
+        RedisBatch batch = new RedisBatch(redisTemplate, invalidated::add)
+                .chunkSize(1)
+                .set("a", 1)
+                .set("b", 2);
+        Assertions.assertThrows(IllegalStateException.class, batch::execute);
+        // 第一个分块可能已写入，失败时同样失效
+        Assertions.assertEquals(Collections.singletonList(Arrays.asList("a", "b")), invalidated);
+    }
+}
@@ -0,0 +1,147 @@
+package com.cyitce.util.redis.annotation;
+
+import com.cyitce.util.redis.RedisUtil;
+import com.cyitce.util.redis.key.HashKeyGenerator;
+import com.cyitce.util.redis.key.KeyGenerator;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.BeanFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @version 1.0
+ */
+public class BatchResultCacheImplTest {
+
+    private final Service service = new Service();
+    private RedisUtil redisUtil;
+    private BatchResultCacheImpl impl;
+
+    @BeforeEach
+    public void setup() {
+        redisUtil = Mockito.mock(RedisUtil.class);
+        BeanFactory beanFactory = Mockito.mock(BeanFactory.class);
+        Mockito.when(beanFactory.getBean(KeyGenerator.class)).thenReturn(new HashKeyGenerator(256, 64));
+        impl = new BatchResultCacheImpl(redisUtil, beanFactory);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void keyTest() {
+        Mockito.when(redisUtil.mget(Mockito.anyList())).thenAnswer(invocation -> Arrays.asList(new Object[((List<?>) invocation.getArgument(0)).size()]));
+        call("linked", new ArrayList<>(Arrays.asList("a:b", "c")));
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(redisUtil).mget(keys.capture());
+        // ID经KeyGenerator转义，与其他ID的键不会冲突
+        Assertions.assertEquals(Arrays.asList("users:a\\:b", "users:c"), keys.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void linkedListTest() {
+        // b命中缓存，a、c未命中
+        Mockito.when(redisUtil.mget(Mockito.anyList())).thenReturn(Arrays.asList(null, "B", null));
+        Object result = call("linked", new ArrayList<>(Arrays.asList("a", "b", "a", "c")));
+        Assertions.assertTrue(result instanceof LinkedList);
+        // 重复的ID按传入顺序分别组装
+        Assertions.assertEquals(Arrays.asList("A", "B", "A", "C"), result);
+        Assertions.assertEquals(Collections.singletonList(Arrays.asList("a", "c")), service.loaded);
+        ArgumentCaptor<Map<String, Object>> save = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(redisUtil).mset(save.capture(), Mockito.anyLong(), Mockito.anyLong(), Mockito.eq(TimeUnit.MILLISECONDS));
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("users:a", "A");
+        expected.put("users:c", "C");
+        Assertions.assertEquals(expected, save.getValue());
+    }
+
+    @Test
+    public void treeMapTest() {
+        Mockito.when(redisUtil.mget(Mockito.anyList())).thenReturn(Arrays.asList(null, "B", null));
+        Object result = call("sorted", new TreeSet<>(Arrays.asList("c", "b", "a")));
+        Assertions.assertTrue(result instanceof TreeMap);
+        Map<String, String> expected = new TreeMap<>();
+        expected.put("a", "A");
+        expected.put("b", "B");
+        expected.put("c", "C");
+        Assertions.assertEquals(expected, result);
+        // 未命中的ID以声明的参数类型传入原方法
+        Assertions.assertEquals(Collections.singletonList(new TreeSet<>(Arrays.asList("a", "c"))), service.loaded);
+        Assertions.assertTrue(service.loaded.get(0) instanceof TreeSet);
+    }
+
+    @Test
+    public void unsupportedTest() {
+        Object result = call("unsupported", Arrays.asList("a", "b"));
+        Assertions.assertEquals(Arrays.asList("a", "b"), result);
+        // 不支持的类型在解析元数据时拒绝，直接执行原方法
+        Mockito.verifyNoInteractions(redisUtil);
+    }
+
+    private Object call(String methodName, Object... args) {
+        try {
+            Method method = null;
+            for (Method m : Service.class.getDeclaredMethods()) {
+                if (m.getName().equals(methodName)) {
+                    method = m;
+                }
+            }
+            MethodSignature signature = Mockito.mock(MethodSignature.class);
+            Mockito.when(signature.getMethod()).thenReturn(method);
+            ProceedingJoinPoint joinPoint = Mockito.mock(ProceedingJoinPoint.class);
+            Mockito.when(joinPoint.getSignature()).thenReturn(signature);
+            Mockito.when(joinPoint.getArgs()).thenReturn(args);
+            Method target = method;
+            Mockito.when(joinPoint.proceed(Mockito.any())).thenAnswer(invocation -> {
+                try {
+                    return target.invoke(service, (Object[]) invocation.getArgument(0));
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+            return impl.dealCache(joinPoint, method.getAnnotation(BatchResultCache.class));
+        } catch (Throwable throwable) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+
+    static class Service {
+
+        private final List<Collection<String>> loaded = new ArrayList<>();
+
+        @BatchResultCache(key = "users")
+        public LinkedList<String> linked(List<String> ids) {
+            loaded.add(ids);
+            LinkedList<String> result = new LinkedList<>();
+            for (String id : ids) {
+                result.add(id.toUpperCase());
+            }
+            return result;
+        }
+
+        @BatchResultCache(key = "sorted")
+        public TreeMap<String, String> sorted(SortedSet<String> ids) {
+            loaded.add(ids);
+            TreeMap<String, String> result = new TreeMap<>();
+            for (String id : ids) {
+                result.put(id, id.toUpperCase());
+            }
+            return result;
+        }
+
+        @BatchResultCache
+        public List<String> unsupported(Iterable<String> ids) {
+            List<String> result = new ArrayList<>();
+            ids.forEach(result::add);
+            return result;
+        }
+    }
+}
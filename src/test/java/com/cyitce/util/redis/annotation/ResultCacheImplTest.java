@@ -0,0 +1,244 @@
+package com.cyitce.util.redis.annotation;
+
+import com.cyitce.util.redis.RedisUtil;
+import com.cyitce.util.redis.cache.CacheEntry;
+import com.cyitce.util.redis.cache.NearCache;
+import com.cyitce.util.redis.configs.RedisUtilProperties;
+import com.cyitce.util.redis.hotkey.HotKeyDetector;
+import com.cyitce.util.redis.key.HashKeyGenerator;
+import com.cyitce.util.redis.key.KeyGenerator;
+import com.cyitce.util.redis.loader.RedisBatchLoader;
+import com.cyitce.util.redis.metrics.RedisMetrics;
+import com.cyitce.util.redis.notify.RedisNotifier;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @version 1.0
+ */
+public class ResultCacheImplTest {
+
+    private final Service service = new Service();
+    private RedisUtil redisUtil;
+    private ResultCacheImpl impl;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        redisUtil = Mockito.mock(RedisUtil.class);
+        RedisTemplate<String, Object> redisTemplate = Mockito.mock(RedisTemplate.class);
+        Mockito.doReturn(new JdkSerializationRedisSerializer()).when(redisTemplate).getValueSerializer();
+        Mockito.when(redisUtil.redisTemplate()).thenReturn(redisTemplate);
+        Mockito.when(redisUtil.lock(Mockito.anyString(), Mockito.anyLong(), Mockito.any(TimeUnit.class))).thenReturn(true);
+        Mockito.when(redisUtil.unlock(Mockito.anyString())).thenReturn(true);
+        BeanFactory beanFactory = Mockito.mock(BeanFactory.class);
+        Mockito.when(beanFactory.getBean(KeyGenerator.class)).thenReturn(new HashKeyGenerator(256, 64));
+        impl = new ResultCacheImpl(redisUtil, Mockito.mock(NearCache.class), Mockito.mock(RedisNotifier.class),
+                Mockito.mock(RedisBatchLoader.class), new RedisUtilProperties(), beanFactory, Mockito.mock(RedisMetrics.class),
+                Mockito.mock(HotKeyDetector.class), Mockito.mock(ObjectProvider.class));
+    }
+
+    @Test
+    public void followerCopyTest() throws Exception {
+        Object[] results = new Object[2];
+        Thread leader = new Thread(() -> results[0] = call("list", "a"));
+        leader.start();
+        Assertions.assertTrue(service.started.await(1, TimeUnit.SECONDS));
+        Thread follower = new Thread(() -> results[1] = call("list", "a"));
+        follower.start();
+        // 等待者查找缓存未命中后加入进行中的加载
+        Mockito.verify(redisUtil, Mockito.timeout(1000).times(2)).get(Mockito.anyString());
+        Thread.sleep(100);
+        service.release.countDown();
+        leader.join(1000);
+        follower.join(1000);
+        Assertions.assertEquals(1, service.loads.get());
+        Assertions.assertEquals(Collections.singletonList("a"), results[0]);
+        Assertions.assertEquals(results[0], results[1]);
+        // 等待者得到自己的副本
+        Assertions.assertNotSame(results[0], results[1]);
+    }
+
+    @Test
+    public void earlyRecomputeTest() {
+        ArrayList<String> stale = new ArrayList<>(Collections.singletonList("stale"));
+        // 已到硬过期时间，必然提前重算
+        Mockito.when(redisUtil.get(Mockito.anyString())).thenReturn(new CacheEntry(stale, 0, System.currentTimeMillis(), 100));
+        Assertions.assertEquals(Collections.singletonList("a"), call("early", "a"));
+        Assertions.assertEquals(1, service.loads.get());
+        Mockito.verify(redisUtil).unlock(Mockito.anyString());
+    }
+
+    @Test
+    public void earlyRecomputeLockedTest() {
+        ArrayList<String> stale = new ArrayList<>(Collections.singletonList("stale"));
+        Mockito.when(redisUtil.get(Mockito.anyString())).thenReturn(new CacheEntry(stale, 0, System.currentTimeMillis(), 100));
+        // 其他实例正在重算，不等待，直接返回旧值
+        Mockito.when(redisUtil.lock(Mockito.anyString(), Mockito.anyLong(), Mockito.any(TimeUnit.class))).thenReturn(false);
+        Assertions.assertEquals(stale, call("early", "a"));
+        Assertions.assertEquals(0, service.loads.get());
+    }
+
+    @Test
+    public void staleWhileRevalidateTest() {
+        ArrayList<String> stale = new ArrayList<>(Collections.singletonList("stale"));
+        Mockito.when(redisUtil.get(Mockito.anyString())).thenReturn(new CacheEntry(stale, System.currentTimeMillis() - 1));
+        // 已软过期，立即返回旧值
+        Assertions.assertEquals(stale, call("stale", "a"));
+        // 后台刷新并写入新的软过期时间
+        ArgumentCaptor<Object> saved = ArgumentCaptor.forClass(Object.class);
+        Mockito.verify(redisUtil, Mockito.timeout(1000)).set(Mockito.anyString(), saved.capture(), Mockito.anyLong(), Mockito.eq(TimeUnit.MILLISECONDS));
+        CacheEntry entry = (CacheEntry) saved.getValue();
+        Assertions.assertEquals(Collections.singletonList("a"), entry.getValue());
+        Assertions.assertFalse(entry.isSoftExpired(System.currentTimeMillis()));
+        Mockito.verify(redisUtil, Mockito.timeout(1000)).unlock(Mockito.anyString());
+        Assertions.assertEquals(1, service.loads.get());
+    }
+
+    @Test
+    public void freshEntryTest() {
+        ArrayList<String> cached = new ArrayList<>(Collections.singletonList("cached"));
+        Mockito.when(redisUtil.get(Mockito.anyString())).thenReturn(new CacheEntry(cached, System.currentTimeMillis() + 60000));
+        Assertions.assertEquals(cached, call("stale", "a"));
+        // 未软过期时不刷新
+        Mockito.verify(redisUtil, Mockito.after(100).never()).lock(Mockito.anyString(), Mockito.anyLong(), Mockito.any(TimeUnit.class));
+        Assertions.assertEquals(0, service.loads.get());
+    }
+
+    @Test
+    public void futureNullTest() throws Exception {
+        Mockito.when(redisUtil.get(Mockito.anyString())).thenReturn("NULL");
+        // 命中null占位时返回以null完成的future，不执行原方法
+        Assertions.assertNull(((CompletableFuture<?>) call("future", "a")).get(1, TimeUnit.SECONDS));
+        Mockito.when(redisUtil.get(Mockito.anyString())).thenReturn(1);
+        // 类型与泛型参数不符时同样视为null
+        Assertions.assertNull(((CompletableFuture<?>) call("future", "a")).get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, service.loads.get());
+    }
+
+    @Test
+    public void futureMissTest() throws Exception {
+        Assertions.assertEquals("a", ((CompletableFuture<?>) call("future", "a")).get(1, TimeUnit.SECONDS));
+        Mockito.verify(redisUtil, Mockito.timeout(1000)).set(Mockito.anyString(), Mockito.eq("a"), Mockito.anyLong(), Mockito.eq(TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(1, service.loads.get());
+    }
+
+    @Test
+    public void monoNullTest() {
+        Mockito.when(redisUtil.get(Mockito.anyString())).thenReturn("NULL");
+        // 命中null占位时返回空的Mono
+        Assertions.assertFalse(((Mono<?>) call("mono", "a")).blockOptional(Duration.ofSeconds(1)).isPresent());
+        Mockito.when(redisUtil.get(Mockito.anyString())).thenReturn(null);
+        Assertions.assertEquals("a", ((Mono<?>) call("mono", "a")).block(Duration.ofSeconds(1)));
+        Mockito.verify(redisUtil).set(Mockito.anyString(), Mockito.eq("a"), Mockito.anyLong(), Mockito.eq(TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(1, service.loads.get());
+    }
+
+    @Test
+    public void fluxNullTest() {
+        Mockito.when(redisUtil.get(Mockito.anyString())).thenReturn("NULL");
+        // 命中null占位时返回空的Flux
+        Assertions.assertEquals(Collections.emptyList(), ((Flux<?>) call("flux", "a")).collectList().block(Duration.ofSeconds(1)));
+        // 缓存的List逐个发出
+        Mockito.when(redisUtil.get(Mockito.anyString())).thenReturn(Arrays.asList("x", "y"));
+        Assertions.assertEquals(Arrays.asList("x", "y"), ((Flux<?>) call("flux", "a")).collectList().block(Duration.ofSeconds(1)));
+        Assertions.assertEquals(0, service.loads.get());
+    }
+
+    private Object call(String methodName, Object... args) {
+        try {
+            Method method = null;
+            for (Method m : Service.class.getDeclaredMethods()) {
+                if (m.getName().equals(methodName)) {
+                    method = m;
+                }
+            }
+            MethodSignature signature = Mockito.mock(MethodSignature.class);
+            Mockito.when(signature.getMethod()).thenReturn(method);
+            ProceedingJoinPoint joinPoint = Mockito.mock(ProceedingJoinPoint.class);
+            Mockito.when(joinPoint.getSignature()).thenReturn(signature);
+            Mockito.when(joinPoint.getTarget()).thenReturn(service);
+            Mockito.when(joinPoint.getArgs()).thenReturn(args);
+            Method target = method;
+            Mockito.when(joinPoint.proceed(Mockito.any())).thenAnswer(invocation -> {
+                try {
+                    return target.invoke(service, (Object[]) invocation.getArgument(0));
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+            return impl.dealCache(joinPoint, method.getAnnotation(ResultCache.class));
+        } catch (Throwable throwable) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+
+    static class Service {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger loads = new AtomicInteger();
+
+        @ResultCache
+        public ArrayList<String> list(String id) throws InterruptedException {
+            loads.incrementAndGet();
+            started.countDown();
+            release.await(1, TimeUnit.SECONDS);
+            return new ArrayList<>(Collections.singletonList(id));
+        }
+
+        @ResultCache(softExpire = 1000)
+        public ArrayList<String> stale(String id) {
+            loads.incrementAndGet();
+            return new ArrayList<>(Collections.singletonList(id));
+        }
+
+        @ResultCache(nullSave = "NULL")
+        public CompletableFuture<String> future(String id) {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(id);
+        }
+
+        @ResultCache(nullSave = "NULL")
+        public Mono<String> mono(String id) {
+            return Mono.fromCallable(() -> {
+                loads.incrementAndGet();
+                return id;
+            });
+        }
+
+        @ResultCache(nullSave = "NULL")
+        public Flux<String> flux(String id) {
+            loads.incrementAndGet();
+            return Flux.just(id);
+        }
+
+        @ResultCache(earlyRecompute = true)
+        public ArrayList<String> early(String id) {
+            loads.incrementAndGet();
+            return new ArrayList<>(Collections.singletonList(id));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.cyitce.util.redis.benchmark;
+
+import com.cyitce.util.redis.RedisBatch;
+import com.cyitce.util.redis.RedisUtil;
+import com.cyitce.util.redis.serializer.FormatRedisSerializer;
+import com.cyitce.util.redis.serializer.SerializerFormat;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @version 1.0
+ * 管道批量操作与逐条调用的吞吐对比，每次调用执行 ops 组 hset + expire + zAdd。
+ * 需要可访问的Redis：-Dredis.host=127.0.0.1 -Dredis.port=6379，运行 main 方法。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisBatchBenchmark {
+
+    private static final String KEY = "RedisBatchBenchmark:";
+
+    @Param({"10", "500"})
+    private int ops;
+
+    private LettuceConnectionFactory connectionFactory;
+    private RedisUtil redisUtil;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RedisBatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(
+                System.getProperty("redis.host", "127.0.0.1"), Integer.getInteger("redis.port", 6379)));
+        connectionFactory.afterPropertiesSet();
+        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new FormatRedisSerializer(SerializerFormat.JSON));
+        redisTemplate.setHashValueSerializer(new FormatRedisSerializer(SerializerFormat.JSON));
+        redisTemplate.afterPropertiesSet();
+        redisUtil = new RedisUtil(redisTemplate);
+    }
+
+    @TearDown
+    public void tearDown() {
+        redisUtil.delete(KEY + "hash", KEY + "zset");
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public void oneCallPerOp() {
+        for (int i = 0; i < ops; i++) {
+            redisUtil.hset(KEY + "hash", "f" + i, i);
+            redisUtil.expire(KEY + "hash", 60, TimeUnit.SECONDS);
+            redisUtil.zAdd(KEY + "zset", "m" + i, i);
+        }
+    }
+
+    @Benchmark
+    public Object batch() {
+        RedisBatch batch = redisUtil.batch();
+        for (int i = 0; i < ops; i++) {
+            batch.hset(KEY + "hash", "f" + i, i)
+                    .expire(KEY + "hash", 60, TimeUnit.SECONDS)
+                    .zAdd(KEY + "zset", "m" + i, i);
+        }
+        return batch.execute();
+    }
+}
@@ -0,0 +1,98 @@
+package com.cyitce.util.redis.benchmark;
+
+import com.cyitce.util.redis.annotation.ResultCache;
+import com.cyitce.util.redis.annotation.ResultCacheMetadata;
+import com.cyitce.util.redis.key.HashKeyGenerator;
+import com.cyitce.util.redis.pojo.User;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @version 1.0
+ * ResultCache命中路径基准测试（不访问Redis）：对比每次调用重新推导键前缀、反射查找回调的旧实现与预编译元数据。
+ * 运行 main 方法，结果中 gc.alloc.rate.norm 即 bytes/op。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultCacheHitPathBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Target target = new Target();
+    private final Object[] args = {"jhy", 18};
+    private final User cached = new User("jhy", "n");
+    private String declaringTypeName;
+    private String name;
+    private ResultCache resultCache;
+    private ResultCacheMetadata meta;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ResultCacheHitPathBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        Method method = Target.class.getDeclaredMethod("find", String.class, Integer.class);
+        declaringTypeName = method.getDeclaringClass().getName();
+        name = method.getName();
+        resultCache = method.getAnnotation(ResultCache.class);
+        meta = new ResultCacheMetadata(method, Target.class, resultCache, new HashKeyGenerator(256, 64));
+    }
+
+    @Benchmark
+    public Object legacy() throws Exception {
+        String methodName = "ResultCache:" + declaringTypeName + "." + name;
+        StringBuilder keyBuilder = new StringBuilder(resultCache.key().isEmpty() ? methodName : resultCache.key());
+        for (int param : resultCache.params()) {
+            try {
+                keyBuilder.append(':').append(objectMapper.writeValueAsString(args[param]));
+            } catch (JsonProcessingException e) {
+                keyBuilder.append(args[param].toString());
+            }
+        }
+        String cacheKey = keyBuilder.toString();
+        Method callback = target.getClass().getDeclaredMethod(resultCache.callbackMethod(), Object.class);
+        Object result = callback.invoke(target, cached);
+        return result.getClass().equals(User.class) ? cacheKey : null;
+    }
+
+    @Benchmark
+    public Object metadata() throws Throwable {
+        String cacheKey = meta.buildKey(args);
+        MethodHandle callback = meta.callback(target);
+        Object result = callback.invoke(target, cached);
+        return meta.isReturnType(result) ? cacheKey : null;
+    }
+
+    public static class Target {
+
+        @ResultCache(params = {0, 1}, callbackMethod = "callback")
+        public User find(String name, Integer age) {
+            return new User(name, "n");
+        }
+
+        public Object callback(Object o) {
+            return o;
+        }
+    }
+}
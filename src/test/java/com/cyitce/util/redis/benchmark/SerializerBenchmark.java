@@ -0,0 +1,81 @@
+package com.cyitce.util.redis.benchmark;
+
+import com.cyitce.util.redis.pojo.User;
+import com.cyitce.util.redis.serializer.FormatRedisSerializer;
+import com.cyitce.util.redis.serializer.SerializerFormat;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @version 1.0
+ * 各序列化格式的基准测试：单个User与100个User列表的序列化/反序列化耗时。
+ * 运行 main 方法，JMH结果之后会输出 Payload size 表，列出各格式与列表大小下序列化后的字节数（与耗时无关，只计算一次）。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializerBenchmark {
+
+    @Param({"JSON", "SMILE", "KRYO"})
+    private SerializerFormat format;
+
+    @Param({"1", "100"})
+    private int size;
+
+    private FormatRedisSerializer serializer;
+    private Object value;
+    private byte[] bytes;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SerializerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+        System.out.println();
+        System.out.println("Payload size (bytes)");
+        System.out.printf("%-8s %8s %8s%n", "format", "size=1", "size=100");
+        for (SerializerFormat format : SerializerFormat.values()) {
+            FormatRedisSerializer serializer = new FormatRedisSerializer(format);
+            System.out.printf("%-8s %8d %8d%n", format,
+                    serializer.serialize(value(1)).length, serializer.serialize(value(100)).length);
+        }
+    }
+
+    private static Object value(int size) {
+        if (size == 1) {
+            return new User("jhy", "n");
+        }
+        List<User> users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            users.add(new User("user" + i, i % 2 == 0 ? "n" : "v"));
+        }
+        return users;
+    }
+
+    @Setup
+    public void setup() {
+        serializer = new FormatRedisSerializer(format);
+        value = value(size);
+        bytes = serializer.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+}
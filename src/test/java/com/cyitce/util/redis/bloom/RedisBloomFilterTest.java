@@ -0,0 +1,19 @@
+package com.cyitce.util.redis.bloom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @version 1.0
+ */
+public class RedisBloomFilterTest {
+
+    @Test
+    public void sizingTest() {
+        long bits = RedisBloomFilter.optimalNumOfBits(1_000_000, 0.01);
+        Assertions.assertEquals(9585059, bits);
+        Assertions.assertEquals(7, RedisBloomFilter.optimalNumOfHashFunctions(1_000_000, bits));
+        Assertions.assertEquals(RedisBloomFilter.MAX_BIT_SIZE, RedisBloomFilter.optimalNumOfBits(Long.MAX_VALUE / 64, 0.01));
+        Assertions.assertEquals(1, RedisBloomFilter.optimalNumOfHashFunctions(1_000_000, 1));
+    }
+}
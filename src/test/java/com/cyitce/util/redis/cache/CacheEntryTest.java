@@ -0,0 +1,58 @@
+package com.cyitce.util.redis.cache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @version 1.0
+ */
+public class CacheEntryTest {
+
+    @Test
+    public void softExpireTest() {
+        long now = 1_000_000;
+        // 未设置软过期时间时永不软过期
+        Assertions.assertFalse(new CacheEntry("v", 0).isSoftExpired(now));
+        Assertions.assertFalse(new CacheEntry("v", now + 1).isSoftExpired(now));
+        // 到达软过期时间即视为软过期
+        Assertions.assertTrue(new CacheEntry("v", now).isSoftExpired(now));
+        Assertions.assertTrue(new CacheEntry("v", now - 1).isSoftExpired(now));
+    }
+
+    @Test
+    public void recomputeEarlyTest() {
+        long now = 1_000_000;
+        // 未记录硬过期时间或计算耗时时不提前重算
+        Assertions.assertFalse(new CacheEntry("v", 0, 0, 100).shouldRecomputeEarly(now, 1));
+        Assertions.assertFalse(new CacheEntry("v", 0, now + 10, 0).shouldRecomputeEarly(now, 1));
+        // 已到硬过期时间时总是重算
+        Assertions.assertTrue(new CacheEntry("v", 0, now, 100).shouldRecomputeEarly(now, 1));
+        // 距过期时间为计算耗时的100倍时几乎不会重算（概率e^-100）
+        CacheEntry far = new CacheEntry("v", 0, now + 100 * 100, 100);
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertFalse(far.shouldRecomputeEarly(now, 1));
+        }
+    }
+
+    @Test
+    public void recomputeEarlyProbabilityTest() {
+        long now = 1_000_000;
+        long delta = 1000;
+        // 距过期时间 delta*ln2 时，重算概率为 0.5^(1/beta)；beta越大越早重算
+        CacheEntry entry = new CacheEntry("v", 0, now + Math.round(delta * Math.log(2)), delta);
+        Assertions.assertEquals(0.5, ratio(entry, now, 1), 0.03);
+        Assertions.assertEquals(Math.sqrt(0.5), ratio(entry, now, 2), 0.03);
+        Assertions.assertEquals(0.25, ratio(entry, now, 0.5), 0.03);
+    }
+
+    private static double ratio(CacheEntry entry, long now, double beta) {
+        int trials = 20000;
+        int recomputed = 0;
+        for (int i = 0; i < trials; i++) {
+            if (entry.shouldRecomputeEarly(now, beta)) {
+                recomputed++;
+            }
+        }
+        return (double) recomputed / trials;
+    }
+}
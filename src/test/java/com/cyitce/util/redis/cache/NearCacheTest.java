@@ -0,0 +1,65 @@
+package com.cyitce.util.redis.cache;
+
+import com.cyitce.util.redis.configs.RedisUtilProperties;
+import com.cyitce.util.redis.notify.RedisNotifier;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @version 1.0
+ */
+public class NearCacheTest {
+
+    private final RedisNotifier notifier = Mockito.mock(RedisNotifier.class);
+    private final NearCache nearCache;
+
+    @SuppressWarnings("unchecked")
+    public NearCacheTest() {
+        RedisTemplate<String, Object> redisTemplate = Mockito.mock(RedisTemplate.class);
+        Mockito.doReturn(new JdkSerializationRedisSerializer()).when(redisTemplate).getValueSerializer();
+        nearCache = new NearCache(new RedisUtilProperties(), notifier, redisTemplate);
+    }
+
+    @Test
+    public void copyTest() {
+        List<String> value = new ArrayList<>(Arrays.asList("a", "b"));
+        nearCache.put("shared", value, 1000, false);
+        nearCache.put("copied", value, 1000, true);
+        // 默认直接返回保存的对象，不反序列化
+        Assertions.assertSame(value, nearCache.get("shared"));
+        Object copy = nearCache.get("copied");
+        Assertions.assertEquals(value, copy);
+        Assertions.assertNotSame(value, copy);
+        Assertions.assertNotSame(copy, nearCache.get("copied"));
+    }
+
+    @Test
+    public void invalidateTest() {
+        nearCache.put("a", 1, 1000, false);
+        nearCache.put("b", 2, 1000, false);
+        nearCache.put("c", 3, 1000, false);
+        nearCache.invalidateAll(Arrays.asList("a", "b"));
+        Assertions.assertNull(nearCache.get("a"));
+        Assertions.assertNull(nearCache.get("b"));
+        Assertions.assertEquals(3, nearCache.get("c"));
+        // 多个键合并为一条通知
+        Mockito.verify(notifier).publish(NearCache.INVALIDATE_TOPIC, "a\nb");
+    }
+
+    @Test
+    public void invalidatePatternTest() {
+        nearCache.put("ResultCache:com.foo.Service.get:1", 1, 1000, false);
+        nearCache.put("ResultCache:com.foo.Other.get:1", 2, 1000, false);
+        nearCache.invalidatePattern("ResultCache:com.foo.Service.*");
+        Assertions.assertNull(nearCache.get("ResultCache:com.foo.Service.get:1"));
+        Assertions.assertEquals(2, nearCache.get("ResultCache:com.foo.Other.get:1"));
+        Mockito.verify(notifier).publish(NearCache.INVALIDATE_PATTERN_TOPIC, "ResultCache:com.foo.Service.*");
+    }
+}
@@ -0,0 +1,77 @@
+package com.cyitce.util.redis.hotkey;
+
+import com.cyitce.util.redis.configs.RedisUtilProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @version 1.0
+ */
+public class HotKeyDetectorTest {
+
+    private HotKeyDetector detector;
+
+    @AfterEach
+    public void destroy() {
+        if (detector != null) {
+            detector.destroy();
+        }
+    }
+
+    @Test
+    public void sketchTest() {
+        FrequencySketch sketch = new FrequencySketch(1024);
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("hot");
+        }
+        sketch.increment("cold");
+        Assertions.assertTrue(sketch.estimate("hot") >= 100);
+        Assertions.assertTrue(sketch.estimate("cold") < 100);
+        sketch.decay();
+        Assertions.assertTrue(sketch.estimate("hot") >= 50 && sketch.estimate("hot") < 100);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void promoteTest() {
+        RedisUtilProperties.HotKey config = new RedisUtilProperties.HotKey();
+        config.setSampleRate(1);
+        config.setThreshold(10);
+        config.setWindow(60000);
+        config.setPromote(true);
+        detector = new HotKeyDetector(config, null, new JdkSerializationRedisSerializer());
+        for (int i = 0; i < 19; i++) {
+            detector.record("hot", "v");
+        }
+        Assertions.assertFalse(detector.isHot("hot"));
+        Assertions.assertNull(detector.getLocal("hot"));
+        detector.record("hot", "v");
+        detector.record("cold", "c");
+        Assertions.assertTrue(detector.isHot("hot"));
+        Assertions.assertEquals("v", detector.getLocal("hot"));
+        Assertions.assertNull(detector.getLocal("cold"));
+        Assertions.assertEquals("hot", detector.topK().get(0).getKey());
+        detector.invalidate("hot");
+        Assertions.assertNull(detector.getLocal("hot"));
+        detector.record("hot", "v");
+        detector.invalidatePattern("h*");
+        Assertions.assertNull(detector.getLocal("hot"));
+        // 每次读取得到独立的副本
+        List<String> list = new ArrayList<>(Collections.singletonList("a"));
+        detector.record("hot", list);
+        List<String> copy = (List<String>) detector.getLocal("hot");
+        copy.add("b");
+        Assertions.assertEquals(list, detector.getLocal("hot"));
+        // 无访问时两个窗口后降温
+        detector.decay();
+        Assertions.assertTrue(detector.isHot("hot"));
+        detector.decay();
+        Assertions.assertFalse(detector.isHot("hot"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.cyitce.util.redis.key;
+
+import com.cyitce.util.redis.pojo.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @version 1.0
+ */
+public class HashKeyGeneratorTest {
+
+    private final HashKeyGenerator keyGenerator = new HashKeyGenerator(128, 16);
+
+    @Test
+    public void simpleArgsTest() {
+        Assertions.assertEquals("prefix:jhy:18:\\N", keyGenerator.generate("prefix", new Object[]{"jhy", 18, null}, new int[]{0, 1, 2}));
+        Assertions.assertEquals("prefix", keyGenerator.generate("prefix", new Object[]{"jhy"}, new int[0]));
+    }
+
+    @Test
+    public void unambiguousTest() {
+        int[] params = {0, 1};
+        Assertions.assertNotEquals(keyGenerator.generate("prefix", new Object[]{"a:b", "c"}, params),
+                keyGenerator.generate("prefix", new Object[]{"a", "b:c"}, params));
+        Assertions.assertNotEquals(keyGenerator.generate("prefix", new Object[]{null}, new int[]{0}),
+                keyGenerator.generate("prefix", new Object[]{"\\N"}, new int[]{0}));
+        Assertions.assertNotEquals(keyGenerator.generate("prefix", new Object[]{null}, new int[]{0}),
+                keyGenerator.generate("prefix", new Object[]{"null"}, new int[]{0}));
+        Assertions.assertEquals("prefix:a\\:b\\#\\\\", keyGenerator.generate("prefix", new Object[]{"a:b#\\"}, new int[]{0}));
+    }
+
+    @Test
+    public void objectArgsTest() {
+        String key = keyGenerator.generate("prefix", new Object[]{new User("jhy", "n")}, new int[]{0});
+        Assertions.assertEquals("prefix:#".length() + 32, key.length());
+        Assertions.assertEquals(key, keyGenerator.generate("prefix", new Object[]{new User("jhy", "n")}, new int[]{0}));
+        Assertions.assertNotEquals(key, keyGenerator.generate("prefix", new Object[]{new User("jhy", "m")}, new int[]{0}));
+    }
+
+    @Test
+    public void extractorTest() {
+        keyGenerator.registerExtractor(new KeyExtractor<User>() {
+            @Override
+            public Class<User> type() {
+                return User.class;
+            }
+
+            @Override
+            public Object extract(User arg) {
+                return arg.getName();
+            }
+        });
+        Assertions.assertEquals("prefix:jhy", keyGenerator.generate("prefix", new Object[]{new User("jhy", "n")}, new int[]{0}));
+    }
+
+    @Test
+    public void maxLengthTest() {
+        String longArg = "0123456789abcdef0123456789";
+        Assertions.assertEquals("prefix:#".length() + 32, keyGenerator.generate("prefix", new Object[]{longArg}, new int[]{0}).length());
+        Object[] args = new Object[20];
+        int[] params = new int[20];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = "0123456789";
+            params[i] = i;
+        }
+        Assertions.assertEquals("prefix:#".length() + 32, keyGenerator.generate("prefix", args, params).length());
+    }
+
+    @Test
+    public void murmur3Test() {
+        Assertions.assertEquals("029bbd41b3a7d8cb191dae486a901e5b", Murmur3.hash128Hex("hello".getBytes()));
+    }
+}
@@ -0,0 +1,116 @@
+package com.cyitce.util.redis.loader;
+
+import com.cyitce.util.redis.RedisUtil;
+import com.cyitce.util.redis.configs.RedisUtilProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * @version 1.0
+ */
+public class RedisBatchLoaderTest {
+
+    private RedisUtil redisUtil;
+    private RedisUtilProperties properties;
+    private RedisBatchLoader loader;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        redisUtil = Mockito.mock(RedisUtil.class);
+        // 每个键返回"v:"+键
+        Mockito.when(redisUtil.mget(Mockito.anyCollection())).thenAnswer(invocation ->
+                ((Collection<String>) invocation.getArgument(0)).stream().map(k -> (Object) ("v:" + k)).collect(Collectors.toList()));
+        properties = new RedisUtilProperties();
+        properties.getBatchLoader().setMaxBatchSize(3);
+    }
+
+    @AfterEach
+    public void destroy() {
+        loader.destroy();
+    }
+
+    @Test
+    public void scopeTest() {
+        loader = new RedisBatchLoader(redisUtil, properties);
+        try (RedisBatchLoader.Scope scope = loader.openScope()) {
+            CompletableFuture<Object> a = loader.load("a");
+            Assertions.assertFalse(a.isDone());
+            // 作用域内的同步get先发送已收集的load，不会阻塞
+            Assertions.assertEquals("v:b", loader.get("b"));
+            Assertions.assertEquals("v:a", a.join());
+            CompletableFuture<Object> c = loader.load("c");
+            CompletableFuture<Object> c2 = loader.load("c");
+            scope.dispatch();
+            Assertions.assertEquals("v:c", c.join());
+            Assertions.assertEquals("v:c", c2.join());
+        }
+        verifyBatches(Arrays.asList("a", "b"), Arrays.asList("c"));
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void scopeMaxBatchSizeTest() {
+        loader = new RedisBatchLoader(redisUtil, properties);
+        CompletableFuture<Object> d;
+        try (RedisBatchLoader.Scope ignored = loader.openScope()) {
+            loader.load("a");
+            loader.load("b");
+            CompletableFuture<Object> c = loader.load("c");
+            // 达到最大批量时立即发送
+            Assertions.assertTrue(c.isDone());
+            d = loader.load("d");
+            Assertions.assertFalse(d.isDone());
+        }
+        Assertions.assertEquals("v:d", d.join());
+        verifyBatches(Arrays.asList("a", "b", "c"), Arrays.asList("d"));
+    }
+
+    @Test
+    public void windowTest() throws Exception {
+        properties.getBatchLoader().setWindow(TimeUnit.MILLISECONDS.toMicros(20));
+        loader = new RedisBatchLoader(redisUtil, properties);
+        CompletableFuture<Object> a = loader.load("a");
+        CompletableFuture<Object> b = loader.load("b");
+        Assertions.assertFalse(a.isDone());
+        Assertions.assertEquals("v:a", a.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals("v:b", b.get(1, TimeUnit.SECONDS));
+        verifyBatches(Arrays.asList("a", "b"));
+    }
+
+    @Test
+    public void getWithoutWindowTest() {
+        // 窗口足够长，同步get仍立即返回，并带上已排队的load
+        properties.getBatchLoader().setWindow(TimeUnit.SECONDS.toMicros(60));
+        loader = new RedisBatchLoader(redisUtil, properties);
+        CompletableFuture<Object> a = loader.load("a");
+        long start = System.nanoTime();
+        Assertions.assertEquals("v:b", loader.get("b"));
+        Assertions.assertEquals("v:c", loader.get("c"));
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        Assertions.assertEquals("v:a", a.join());
+        verifyBatches(Arrays.asList("a", "b"), Arrays.asList("c"));
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private final void verifyBatches(List<String>... batches) {
+        ArgumentCaptor<Collection<String>> captor = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(redisUtil, Mockito.times(batches.length)).mget(captor.capture());
+        List<Collection<String>> values = captor.getAllValues();
+        for (int i = 0; i < batches.length; i++) {
+            Assertions.assertEquals(batches[i], values.get(i));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.cyitce.util.redis.lock;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @version 1.0
+ */
+public class LocalLockTableTest {
+
+    private final LocalLockTable table = new LocalLockTable();
+
+    @Test
+    public void reentryTest() {
+        Assertions.assertFalse(table.reenter("a"));
+        table.acquired("a");
+        Assertions.assertTrue(table.reenter("a"));
+        Assertions.assertEquals(1, table.exit("a"));
+        Assertions.assertTrue(table.isHeldByCurrentThread("a"));
+        Assertions.assertEquals(0, table.exit("a"));
+        Assertions.assertFalse(table.isHeldByCurrentThread("a"));
+        Assertions.assertEquals(-1, table.exit("a"));
+    }
+
+    @Test
+    public void lockTest() throws InterruptedException {
+        Assertions.assertTrue(table.tryLock("a"));
+        try {
+            boolean[] locked = new boolean[2];
+            Thread thread = new Thread(() -> {
+                locked[0] = table.tryLock("a");
+                // 不同锁ID互不影响
+                locked[1] = table.tryLock("b");
+                table.unlock("b");
+            });
+            thread.start();
+            thread.join();
+            Assertions.assertFalse(locked[0]);
+            Assertions.assertTrue(locked[1]);
+        } finally {
+            table.unlock("a");
+        }
+        Assertions.assertEquals(0, table.size());
+    }
+
+    @Test
+    public void deadHolderTest() throws InterruptedException {
+        Thread thread = new Thread(() -> table.tryLock("a"));
+        thread.start();
+        thread.join();
+        // 持有线程未释放就结束，本地锁可被接管
+        Assertions.assertTrue(table.tryLock("a", 1, TimeUnit.SECONDS));
+        table.unlock("a");
+        Assertions.assertEquals(0, table.size());
+    }
+}
@@ -0,0 +1,96 @@
+package com.cyitce.util.redis.lock;
+
+import com.cyitce.util.redis.RedisUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @version 1.0
+ */
+public class LockAllTest {
+
+    private static final List<String> KEYS = Arrays.asList("a" + RedisUtil.LOCK, "b" + RedisUtil.LOCK, "c" + RedisUtil.LOCK);
+
+    private final LuaRedis redis = new LuaRedis();
+    private final RedisUtil redisUtil;
+
+    @SuppressWarnings("unchecked")
+    public LockAllTest() {
+        RedisTemplate<String, Object> redisTemplate = Mockito.mock(RedisTemplate.class);
+        Mockito.when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), ArgumentMatchers.<RedisSerializer<?>>any(),
+                ArgumentMatchers.any(), ArgumentMatchers.anyList(), ArgumentMatchers.<Object>any())).thenAnswer(invocation -> {
+            Object[] args = Arrays.copyOfRange(invocation.getArguments(), 4, invocation.getArguments().length);
+            return redis.eval(invocation.getArgument(0), invocation.getArgument(3), args);
+        });
+        redisUtil = new RedisUtil(redisTemplate);
+    }
+
+    @Test
+    public void scriptTest() {
+        redis.eval(LockScripts.LOCK, KEYS.subList(1, 2), 30000, "other");
+        // 其中一个锁被占用时全部失败，返回该锁的剩余过期时间
+        Assertions.assertEquals(30000, redis.eval(LockScripts.LOCK_ALL, KEYS, 30000, "x"));
+        Assertions.assertNull(redis.get(KEYS.get(0)));
+        Assertions.assertNull(redis.get(KEYS.get(2)));
+        redis.eval(LockScripts.UNLOCK, KEYS.subList(1, 2), "other", LockScripts.RELEASE_CHANNEL, "i|b");
+        Assertions.assertNull(redis.eval(LockScripts.LOCK_ALL, KEYS, 30000, "x"));
+        // 可重入
+        Assertions.assertNull(redis.eval(LockScripts.LOCK_ALL, KEYS.subList(0, 2), 30000, "x"));
+        Assertions.assertEquals("2", redis.hash(KEYS.get(0)).get("x"));
+        Assertions.assertEquals("1", redis.hash(KEYS.get(2)).get("x"));
+        redis.published().clear();
+        Assertions.assertEquals(3, redis.eval(LockScripts.UNLOCK_ALL, KEYS, "x", LockScripts.RELEASE_CHANNEL, "i|"));
+        Assertions.assertEquals("1", redis.hash(KEYS.get(0)).get("x"));
+        Assertions.assertNull(redis.get(KEYS.get(2)));
+        // 只有完全释放的锁发布通知，内容为 实例ID|锁ID
+        Assertions.assertEquals(1, redis.published().size());
+        Assertions.assertEquals("\"i|c\"", redis.published().get(0)[1]);
+        Assertions.assertEquals(0, redis.eval(LockScripts.UNLOCK_ALL, KEYS.subList(2, 3), "x", LockScripts.RELEASE_CHANNEL, "i|"));
+    }
+
+    @Test
+    public void remoteRollbackTest() throws Exception {
+        redis.eval(LockScripts.LOCK, KEYS.subList(1, 2), 30000, "other");
+        Assertions.assertFalse(redisUtil.lockAll(Arrays.asList("c", "a", "b"), 10, TimeUnit.SECONDS));
+        Assertions.assertNull(redis.get(KEYS.get(0)));
+        // 失败时本地状态一并回滚，其他线程可以获取a
+        Assertions.assertTrue(lockInOtherThread("a"));
+        Assertions.assertFalse(redisUtil.lockAll(Arrays.asList("a", "c"), 10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void localRollbackTest() throws Exception {
+        Assertions.assertTrue(lockInOtherThread("b"));
+        // 本实例内其他线程持有b时不访问Redis
+        Assertions.assertFalse(redisUtil.lockAll(Arrays.asList("a", "b", "c"), 10, TimeUnit.SECONDS));
+        Assertions.assertNull(redis.get(KEYS.get(0)));
+        Assertions.assertTrue(lockInOtherThread("a"));
+    }
+
+    @Test
+    public void reentryTest() {
+        Assertions.assertTrue(redisUtil.lock("a", 10, TimeUnit.SECONDS));
+        Assertions.assertTrue(redisUtil.lockAll(Arrays.asList("a", "b"), 10, TimeUnit.SECONDS));
+        // a在本地重入，Redis中只持有一次
+        Assertions.assertEquals(1, redis.hash(KEYS.get(0)).size());
+        Assertions.assertEquals(2, redisUtil.unlockAll(Arrays.asList("a", "b")));
+        Assertions.assertNotNull(redis.get(KEYS.get(0)));
+        Assertions.assertNull(redis.get(KEYS.get(1)));
+        Assertions.assertTrue(redisUtil.unlock("a"));
+        Assertions.assertNull(redis.get(KEYS.get(0)));
+    }
+
+    private boolean lockInOtherThread(String lockId) throws Exception {
+        return CompletableFuture.supplyAsync(() -> redisUtil.lock(lockId, 10, TimeUnit.SECONDS)).get(1, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,69 @@
+package com.cyitce.util.redis.lock;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @version 1.0
+ */
+public class LockScriptsTest {
+
+    private static final List<String> KEY = Collections.singletonList("order:lock");
+    private static final String CHANNEL = LockScripts.RELEASE_CHANNEL;
+
+    private final LuaRedis redis = new LuaRedis();
+
+    @Test
+    public void lockTest() {
+        Assertions.assertNull(redis.eval(LockScripts.LOCK, KEY, 30000, "a"));
+        Assertions.assertEquals(30000, redis.pttl("order:lock"));
+        redis.advance(1000);
+        // 其他持有者失败，返回剩余过期时间
+        Assertions.assertEquals(29000, redis.eval(LockScripts.LOCK, KEY, 30000, "b"));
+        // 重入时累加次数并重置过期时间
+        Assertions.assertNull(redis.eval(LockScripts.LOCK, KEY, 30000, "a"));
+        Assertions.assertEquals("2", redis.hash("order:lock").get("a"));
+        Assertions.assertEquals(30000, redis.pttl("order:lock"));
+    }
+
+    @Test
+    public void unlockTest() {
+        redis.eval(LockScripts.LOCK, KEY, 30000, "a");
+        redis.eval(LockScripts.LOCK, KEY, 30000, "a");
+        // 非持有者返回nil
+        Assertions.assertNull(redis.eval(LockScripts.UNLOCK, KEY, "b", CHANNEL, "i|order"));
+        Assertions.assertEquals(0, redis.eval(LockScripts.UNLOCK, KEY, "a", CHANNEL, "i|order"));
+        Assertions.assertTrue(redis.published().isEmpty());
+        Assertions.assertEquals(1, redis.eval(LockScripts.UNLOCK, KEY, "a", CHANNEL, "i|order"));
+        Assertions.assertNull(redis.get("order:lock"));
+        // 完全释放时以JSON字符串发布通知
+        Assertions.assertEquals(1, redis.published().size());
+        Assertions.assertArrayEquals(new String[]{CHANNEL, "\"i|order\""}, redis.published().get(0));
+        Assertions.assertNull(redis.eval(LockScripts.LOCK, KEY, 30000, "b"));
+    }
+
+    @Test
+    public void expireTest() {
+        redis.eval(LockScripts.LOCK, KEY, 30000, "a");
+        redis.advance(30000);
+        // 持有者未续期，过期后其他持有者可加锁，原持有者无法释放
+        Assertions.assertNull(redis.eval(LockScripts.LOCK, KEY, 30000, "b"));
+        Assertions.assertNull(redis.eval(LockScripts.UNLOCK, KEY, "a", CHANNEL, "i|order"));
+        Assertions.assertEquals("1", redis.hash("order:lock").get("b"));
+    }
+
+    @Test
+    public void renewTest() {
+        redis.eval(LockScripts.LOCK, KEY, 30000, "a");
+        redis.advance(20000);
+        Assertions.assertEquals(1, redis.eval(LockScripts.RENEW, KEY, 30000, "a"));
+        Assertions.assertEquals(30000, redis.pttl("order:lock"));
+        Assertions.assertEquals(0, redis.eval(LockScripts.RENEW, KEY, 30000, "b"));
+        redis.advance(30000);
+        // 已过期的锁不能续期
+        Assertions.assertEquals(0, redis.eval(LockScripts.RENEW, KEY, 30000, "a"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.cyitce.util.redis.lock;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.mockito.stubbing.OngoingStubbing;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @version 1.0
+ */
+public class LockWatchdogTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, Object> redisTemplate = Mockito.mock(RedisTemplate.class);
+    private final RedisConnection connection = Mockito.mock(RedisConnection.class);
+    private final RedisScriptingCommands scripting = Mockito.mock(RedisScriptingCommands.class);
+    private final LockWatchdog watchdog = new LockWatchdog(redisTemplate, 30000);
+
+    public LockWatchdogTest() {
+        Mockito.when(connection.scriptingCommands()).thenReturn(scripting);
+    }
+
+    @Test
+    public void evalShaTest() {
+        pipeline().thenAnswer(invocation -> {
+            invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+            return Arrays.asList(1L, 0L);
+        });
+        watchdog.watch("a", "owner", Thread.currentThread());
+        watchdog.watch("b", "owner", Thread.currentThread());
+        watchdog.renewAll();
+        Mockito.verify(scripting, Mockito.times(2)).evalSha(ArgumentMatchers.eq(LockScripts.RENEW.getSha1()),
+                ArgumentMatchers.eq(ReturnType.INTEGER), ArgumentMatchers.eq(1), ArgumentMatchers.<byte[]>any());
+        Mockito.verify(scripting, Mockito.never()).eval(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.anyInt(), ArgumentMatchers.<byte[]>any());
+        // 不再持有的锁停止续期
+        Assertions.assertEquals(1, watchdog.size());
+        watchdog.shutdown();
+    }
+
+    @Test
+    public void noScriptTest() {
+        pipeline().thenAnswer(invocation -> {
+            invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+            throw new RedisPipelineException(new RedisSystemException("NOSCRIPT No matching script", null),
+                    Collections.singletonList(new RedisSystemException("NOSCRIPT No matching script", null)));
+        }).thenAnswer(invocation -> {
+            invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+            return Collections.singletonList(1L);
+        });
+        watchdog.watch("a", "owner", Thread.currentThread());
+        watchdog.renewAll();
+        // 服务端没有缓存脚本时改用EVAL重发
+        Mockito.verify(scripting).eval(ArgumentMatchers.eq(LockScripts.RENEW.getScriptAsString().getBytes()),
+                ArgumentMatchers.eq(ReturnType.INTEGER), ArgumentMatchers.eq(1), ArgumentMatchers.<byte[]>any());
+        Assertions.assertEquals(1, watchdog.size());
+        watchdog.shutdown();
+    }
+
+    @Test
+    public void isNoScriptTest() {
+        Assertions.assertTrue(LockWatchdog.isNoScript(new RedisPipelineException("Pipeline contained one or more invalid commands",
+                Arrays.asList(1L, new RedisSystemException("NOSCRIPT No matching script", null)))));
+        Assertions.assertFalse(LockWatchdog.isNoScript(new RedisSystemException("connection lost", null)));
+    }
+
+    private OngoingStubbing<List<Object>> pipeline() {
+        return Mockito.when(redisTemplate.executePipelined(ArgumentMatchers.any(RedisCallback.class)));
+    }
+}
@@ -0,0 +1,259 @@
+package com.cyitce.util.redis.lock;
+
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaError;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.OneArgFunction;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JsePlatform;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.*;
+
+/**
+ * @version 1.0
+ * 测试用的内存Redis，以LuaJ执行锁脚本，只实现脚本中用到的命令。
+ * 回复按Redis的规则转换：整数为number，不存在的值为false，数组为table；脚本返回nil或false时为null。
+ * 时间由测试推进，键在访问时按过期时间清除。
+ */
+final class LuaRedis {
+
+    private final Map<String, Object> data = new HashMap<>();
+    private final Map<String, Long> expireAt = new HashMap<>();
+    private final List<String[]> published = new ArrayList<>();
+    private long now = 1_000_000;
+
+    /**
+     * 执行脚本
+     *
+     * @param script 脚本
+     * @param keys   KEYS
+     * @param args   ARGV
+     * @return 整数回复，nil时返回null
+     */
+    Long eval(RedisScript<Long> script, List<String> keys, Object... args) {
+        Globals globals = JsePlatform.standardGlobals();
+        LuaTable redis = new LuaTable();
+        redis.set("call", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs varargs) {
+                String[] command = new String[varargs.narg()];
+                for (int i = 0; i < command.length; i++) {
+                    command[i] = varargs.arg(i + 1).tojstring();
+                }
+                return command(command);
+            }
+        });
+        globals.set("redis", redis);
+        LuaTable cjson = new LuaTable();
+        cjson.set("encode", new OneArgFunction() {
+            @Override
+            public LuaValue call(LuaValue value) {
+                return LuaValue.valueOf('"' + value.tojstring().replace("\\", "\\\\").replace("\"", "\\\"") + '"');
+            }
+        });
+        globals.set("cjson", cjson);
+        globals.set("KEYS", table(keys.toArray()));
+        globals.set("ARGV", table(args));
+        LuaValue result = globals.load(script.getScriptAsString()).call();
+        if (result.isnil() || result == LuaValue.FALSE) {
+            return null;
+        }
+        return result == LuaValue.TRUE ? 1L : (long) result.todouble();
+    }
+
+    void advance(long millis) {
+        now += millis;
+    }
+
+    long now() {
+        return now;
+    }
+
+    void set(String key, String value) {
+        data.put(key, value);
+    }
+
+    Object get(String key) {
+        purge();
+        return data.get(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    Map<String, String> hash(String key) {
+        purge();
+        return (Map<String, String>) data.get(key);
+    }
+
+    long pttl(String key) {
+        return command(new String[]{"pttl", key}).arg1().tolong();
+    }
+
+    List<String[]> published() {
+        return published;
+    }
+
+    private static LuaTable table(Object[] values) {
+        LuaTable table = new LuaTable();
+        for (int i = 0; i < values.length; i++) {
+            table.set(i + 1, LuaValue.valueOf(String.valueOf(values[i])));
+        }
+        return table;
+    }
+
+    private void purge() {
+        expireAt.entrySet().removeIf(entry -> {
+            if (entry.getValue() <= now) {
+                data.remove(entry.getKey());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Varargs command(String[] c) {
+        purge();
+        String key = c.length > 1 ? c[1] : null;
+        Object value = data.get(key);
+        switch (c[0].toLowerCase()) {
+            case "exists":
+                return LuaValue.valueOf(value == null ? 0 : 1);
+            case "del":
+                expireAt.remove(key);
+                return LuaValue.valueOf(data.remove(key) == null ? 0 : 1);
+            case "pexpire":
+                if (value == null) {
+                    return LuaValue.valueOf(0);
+                }
+                expireAt.put(key, now + Long.parseLong(c[2]));
+                return LuaValue.valueOf(1);
+            case "pttl":
+                if (value == null) {
+                    return LuaValue.valueOf(-2);
+                }
+                Long at = expireAt.get(key);
+                return LuaValue.valueOf(at == null ? -1 : at - now);
+            case "publish":
+                published.add(new String[]{c[1], c[2]});
+                return LuaValue.valueOf(0);
+            case "get":
+                return value == null ? LuaValue.FALSE : LuaValue.valueOf((String) value);
+            case "decr": {
+                long count = (value == null ? 0 : Long.parseLong((String) value)) - 1;
+                data.put(key, String.valueOf(count));
+                return LuaValue.valueOf(count);
+            }
+            case "hexists":
+                return LuaValue.valueOf(value != null && ((Map<String, String>) value).containsKey(c[2]) ? 1 : 0);
+            case "hget": {
+                String field = value == null ? null : ((Map<String, String>) value).get(c[2]);
+                return field == null ? LuaValue.FALSE : LuaValue.valueOf(field);
+            }
+            case "hset": {
+                Map<String, String> hash = (Map<String, String>) data.computeIfAbsent(key, k -> new LinkedHashMap<>());
+                return LuaValue.valueOf(hash.put(c[2], c[3]) == null ? 1 : 0);
+            }
+            case "hincrby": {
+                Map<String, String> hash = (Map<String, String>) data.computeIfAbsent(key, k -> new LinkedHashMap<>());
+                long count = Long.parseLong(hash.getOrDefault(c[2], "0")) + Long.parseLong(c[3]);
+                hash.put(c[2], String.valueOf(count));
+                return LuaValue.valueOf(count);
+            }
+            case "hdel": {
+                int removed = value != null && ((Map<String, String>) value).remove(c[2]) != null ? 1 : 0;
+                removeIfEmpty(key);
+                return LuaValue.valueOf(removed);
+            }
+            case "hlen":
+                return LuaValue.valueOf(value == null ? 0 : ((Map<String, String>) value).size());
+            case "zadd": {
+                int i = 2;
+                boolean nx = c[i].equalsIgnoreCase("NX");
+                boolean xx = c[i].equalsIgnoreCase("XX");
+                if (nx || xx) {
+                    i++;
+                }
+                Map<String, Double> zset = (Map<String, Double>) data.computeIfAbsent(key, k -> new HashMap<>());
+                boolean exists = zset.containsKey(c[i + 1]);
+                if (!(nx && exists) && !(xx && !exists)) {
+                    zset.put(c[i + 1], Double.parseDouble(c[i]));
+                }
+                removeIfEmpty(key);
+                return LuaValue.valueOf(exists || xx ? 0 : 1);
+            }
+            case "zrem": {
+                int removed = value != null && ((Map<String, Double>) value).remove(c[2]) != null ? 1 : 0;
+                removeIfEmpty(key);
+                return LuaValue.valueOf(removed);
+            }
+            case "zcard":
+                return LuaValue.valueOf(value == null ? 0 : ((Map<String, Double>) value).size());
+            case "zscore": {
+                Double score = value == null ? null : ((Map<String, Double>) value).get(c[2]);
+                return score == null ? LuaValue.FALSE : LuaValue.valueOf(score(score));
+            }
+            case "zrange": {
+                List<Map.Entry<String, Double>> sorted = sorted((Map<String, Double>) value);
+                boolean withScores = c.length > 4 && c[4].equalsIgnoreCase("WITHSCORES");
+                List<String> reply = new ArrayList<>();
+                int stop = Integer.parseInt(c[3]) < 0 ? sorted.size() + Integer.parseInt(c[3]) : Integer.parseInt(c[3]);
+                for (int i = Integer.parseInt(c[2]); i <= stop && i < sorted.size(); i++) {
+                    reply.add(sorted.get(i).getKey());
+                    if (withScores) {
+                        reply.add(score(sorted.get(i).getValue()));
+                    }
+                }
+                return table(reply.toArray());
+            }
+            case "zrangebyscore":
+            case "zremrangebyscore": {
+                double min = bound(c[2]);
+                double max = bound(c[3]);
+                List<String> reply = new ArrayList<>();
+                for (Map.Entry<String, Double> entry : sorted((Map<String, Double>) value)) {
+                    if (entry.getValue() >= min && entry.getValue() <= max) {
+                        reply.add(entry.getKey());
+                    }
+                }
+                if (c[0].equalsIgnoreCase("zrangebyscore")) {
+                    return table(reply.toArray());
+                }
+                if (value != null) {
+                    reply.forEach(((Map<String, Double>) value)::remove);
+                }
+                removeIfEmpty(key);
+                return LuaValue.valueOf(reply.size());
+            }
+            default:
+                throw new LuaError("unsupported command " + c[0]);
+        }
+    }
+
+    private void removeIfEmpty(String key) {
+        Object value = data.get(key);
+        if (value instanceof Map && ((Map<?, ?>) value).isEmpty()) {
+            data.remove(key);
+            expireAt.remove(key);
+        }
+    }
+
+    private static List<Map.Entry<String, Double>> sorted(Map<String, Double> zset) {
+        List<Map.Entry<String, Double>> sorted = new ArrayList<>(zset == null ? Collections.<String, Double>emptyMap().entrySet() : zset.entrySet());
+        sorted.sort(Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+        return sorted;
+    }
+
+    private static double bound(String value) {
+        if (value.equals("-inf")) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return value.equals("+inf") ? Double.POSITIVE_INFINITY : Double.parseDouble(value);
+    }
+
+    private static String score(double score) {
+        return score == Math.rint(score) ? String.valueOf((long) score) : String.valueOf(score);
+    }
+}
@@ -0,0 +1,36 @@
+package com.cyitce.util.redis.lock;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @version 1.0
+ */
+public class RedisCountDownLatchTest {
+
+    private static final List<String> KEY = Collections.singletonList("job" + RedisCountDownLatch.LATCH);
+
+    private final LuaRedis redis = new LuaRedis();
+
+    @Test
+    public void countDownTest() {
+        redis.set(KEY.get(0), "2");
+        Assertions.assertEquals(1, countDown());
+        Assertions.assertTrue(redis.published().isEmpty());
+        // 减到0时删除并通知所有等待者
+        Assertions.assertEquals(0, countDown());
+        Assertions.assertNull(redis.get(KEY.get(0)));
+        Assertions.assertEquals(1, redis.published().size());
+        // 计数不存在时不会减为负数，也不再通知
+        Assertions.assertEquals(0, countDown());
+        Assertions.assertNull(redis.get(KEY.get(0)));
+        Assertions.assertEquals(1, redis.published().size());
+    }
+
+    private Long countDown() {
+        return redis.eval(RedisCountDownLatch.COUNT_DOWN, KEY, LockScripts.RELEASE_CHANNEL, "i|job");
+    }
+}
@@ -0,0 +1,94 @@
+package com.cyitce.util.redis.lock;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @version 1.0
+ */
+public class RedisReadWriteLockTest {
+
+    private static final List<String> KEY = Collections.singletonList("doc" + RedisReadWriteLock.RW_LOCK);
+    private static final String CHANNEL = LockScripts.RELEASE_CHANNEL;
+
+    private final LuaRedis redis = new LuaRedis();
+
+    @Test
+    public void sharedReadTest() {
+        Assertions.assertNull(read("a"));
+        Assertions.assertNull(read("b"));
+        // 有读者时写锁失败，返回剩余过期时间
+        Assertions.assertEquals(30000, write("c"));
+        // a已完全释放，b仍持有读锁，不通知
+        Assertions.assertEquals(1, unlock("a:r"));
+        Assertions.assertTrue(redis.published().isEmpty());
+        Assertions.assertEquals(30000, write("c"));
+        Assertions.assertEquals(1, unlock("b:r"));
+        Assertions.assertNull(redis.get(KEY.get(0)));
+        Assertions.assertEquals(1, redis.published().size());
+        Assertions.assertNull(write("c"));
+    }
+
+    @Test
+    public void exclusiveWriteTest() {
+        Assertions.assertNull(write("a"));
+        Assertions.assertEquals(30000, write("b"));
+        Assertions.assertEquals(30000, read("b"));
+        // 写锁可重入
+        Assertions.assertNull(write("a"));
+        Assertions.assertEquals(0, unlock("a:w"));
+        Assertions.assertEquals(1, unlock("a:w"));
+        Assertions.assertNull(read("b"));
+    }
+
+    @Test
+    public void downgradeTest() {
+        Assertions.assertNull(write("a"));
+        // 写锁持有者可以再获取读锁
+        Assertions.assertNull(read("a"));
+        Assertions.assertEquals(30000, read("b"));
+        // 释放写锁后转为读模式并通知等待的读者
+        Assertions.assertEquals(1, unlock("a:w"));
+        Assertions.assertEquals("read", redis.hash(KEY.get(0)).get("mode"));
+        Assertions.assertEquals(1, redis.published().size());
+        Assertions.assertNull(read("b"));
+        Assertions.assertEquals(30000, write("c"));
+        Assertions.assertEquals(1, unlock("a:r"));
+        Assertions.assertEquals(1, unlock("b:r"));
+        Assertions.assertNull(redis.get(KEY.get(0)));
+    }
+
+    @Test
+    public void unlockNotHeldTest() {
+        Assertions.assertNull(read("a"));
+        Assertions.assertNull(unlock("a:w"));
+        Assertions.assertNull(unlock("b:r"));
+        Assertions.assertEquals("1", redis.hash(KEY.get(0)).get("a:r"));
+    }
+
+    @Test
+    public void readLeaseTest() {
+        Assertions.assertNull(read("a"));
+        redis.advance(20000);
+        // 新读者不会缩短共用的过期时间，只在不足时延长
+        Assertions.assertNull(redis.eval(RedisReadWriteLock.READ_LOCK, KEY, 5000, "b:r", "b:w"));
+        Assertions.assertEquals(10000, redis.pttl(KEY.get(0)));
+        Assertions.assertNull(read("b"));
+        Assertions.assertEquals(30000, redis.pttl(KEY.get(0)));
+    }
+
+    private Long read(String owner) {
+        return redis.eval(RedisReadWriteLock.READ_LOCK, KEY, 30000, owner + ":r", owner + ":w");
+    }
+
+    private Long write(String owner) {
+        return redis.eval(RedisReadWriteLock.WRITE_LOCK, KEY, 30000, owner + ":w");
+    }
+
+    private Long unlock(String owner) {
+        return redis.eval(RedisReadWriteLock.UNLOCK, KEY, owner, CHANNEL, "i|doc");
+    }
+}
@@ -0,0 +1,70 @@
+package com.cyitce.util.redis.lock;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @version 1.0
+ */
+public class RedisSemaphoreTest {
+
+    private static final List<String> KEYS = Arrays.asList("pool" + RedisSemaphore.SEMAPHORE, "pool" + RedisSemaphore.PERMITS);
+
+    private final LuaRedis redis = new LuaRedis();
+
+    @Test
+    public void acquireTest() {
+        // 未设置许可总数
+        Assertions.assertEquals(-1, acquire("p1", 10000));
+        redis.set(KEYS.get(1), "2");
+        Assertions.assertNull(acquire("p1", 10000));
+        redis.advance(1000);
+        Assertions.assertNull(acquire("p2", 10000));
+        Assertions.assertEquals(0, available());
+        // 许可用完时返回最早到期的许可的剩余时间
+        Assertions.assertEquals(9000, acquire("p3", 10000));
+        Assertions.assertEquals(1, redis.eval(RedisSemaphore.RELEASE, KEYS.subList(0, 1), "p1", LockScripts.RELEASE_CHANNEL, "i|pool"));
+        Assertions.assertEquals(1, redis.published().size());
+        Assertions.assertEquals(0, redis.eval(RedisSemaphore.RELEASE, KEYS.subList(0, 1), "p1", LockScripts.RELEASE_CHANNEL, "i|pool"));
+        Assertions.assertNull(acquire("p3", 10000));
+    }
+
+    @Test
+    public void leaseExpireTest() {
+        redis.set(KEYS.get(1), "1");
+        Assertions.assertNull(acquire("p1", 10000));
+        redis.advance(10000);
+        // 持有者未续期，许可在租期结束时回收
+        Assertions.assertEquals(1, available());
+        Assertions.assertEquals(0, renew("p1", 10000));
+        Assertions.assertNull(acquire("p2", 10000));
+    }
+
+    @Test
+    public void renewTest() {
+        redis.set(KEYS.get(1), "1");
+        Assertions.assertNull(acquire("p1", 10000));
+        redis.advance(9000);
+        Assertions.assertEquals(1, renew("p1", 10000));
+        redis.advance(9000);
+        Assertions.assertEquals(0, available());
+        Assertions.assertEquals(1000, acquire("p2", 10000));
+        // 不存在的许可不能续期
+        Assertions.assertEquals(0, renew("p2", 10000));
+    }
+
+    private Long acquire(String permitId, long lease) {
+        return redis.eval(RedisSemaphore.ACQUIRE, KEYS, redis.now(), redis.now() + lease, permitId);
+    }
+
+    private Long renew(String permitId, long lease) {
+        return redis.eval(RedisSemaphore.RENEW, KEYS.subList(0, 1), redis.now(), redis.now() + lease, permitId);
+    }
+
+    private Long available() {
+        return redis.eval(RedisSemaphore.AVAILABLE, KEYS, redis.now());
+    }
+}
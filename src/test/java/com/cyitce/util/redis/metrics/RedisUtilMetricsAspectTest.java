@@ -0,0 +1,24 @@
+package com.cyitce.util.redis.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+/**
+ * @version 1.0
+ */
+public class RedisUtilMetricsAspectTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withBean(RedisMetrics.class, () -> Mockito.mock(RedisMetrics.class))
+            .withUserConfiguration(RedisUtilMetricsAspect.class);
+
+    @Test
+    public void conditionalTest() {
+        runner.run(context -> Assertions.assertEquals(1, context.getBeansOfType(RedisUtilMetricsAspect.class).size()));
+        // 关闭指标时不注册切面，RedisUtil不被代理
+        runner.withPropertyValues("redis-util.metrics.enabled=false")
+                .run(context -> Assertions.assertTrue(context.getBeansOfType(RedisUtilMetricsAspect.class).isEmpty()));
+    }
+}
@@ -0,0 +1,21 @@
+package com.cyitce.util.redis.scan;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @version 1.0
+ */
+public class GlobPatternTest {
+
+    @Test
+    public void compileTest() {
+        Assertions.assertTrue(GlobPattern.compile("user:*").matcher("user:1:name").matches());
+        Assertions.assertFalse(GlobPattern.compile("user:?").matcher("user:12").matches());
+        Assertions.assertTrue(GlobPattern.compile("user:[0-9]").matcher("user:5").matches());
+        Assertions.assertFalse(GlobPattern.compile("user:[^0-9]").matcher("user:5").matches());
+        Assertions.assertTrue(GlobPattern.compile("a\\*b.c").matcher("a*b.c").matches());
+        Assertions.assertFalse(GlobPattern.compile("a\\*b.c").matcher("axb.c").matches());
+        Assertions.assertTrue(GlobPattern.compile("ResultCache:com.foo.Service.*").matcher("ResultCache:com.foo.Service.get:1").matches());
+    }
+}
@@ -0,0 +1,98 @@
+package com.cyitce.util.redis.scan;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * @version 1.0
+ */
+public class PatternDeleterTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, Object> redisTemplate = Mockito.mock(RedisTemplate.class);
+    private final List<List<String>> batches = new ArrayList<>();
+
+    public PatternDeleterTest() {
+        Mockito.when(redisTemplate.unlink(ArgumentMatchers.<Collection<String>>any())).thenAnswer(invocation -> {
+            List<String> batch = new ArrayList<>(invocation.<Collection<String>>getArgument(0));
+            batches.add(batch);
+            return (long) batch.size();
+        });
+    }
+
+    @Test
+    public void batchTest() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        List<Long> progress = new ArrayList<>();
+        CompletableFuture<Long> future = PatternDeleter.delete(redisTemplate, keys(25).onClose(() -> closed.set(true)), 10, 0, progress::add);
+        Assertions.assertEquals(25, future.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(3, batches.size());
+        Assertions.assertEquals(5, batches.get(2).size());
+        Assertions.assertEquals(Arrays.asList(10L, 20L, 25L), progress);
+        Assertions.assertTrue(closed.get());
+    }
+
+    @Test
+    public void rateLimitTest() throws Exception {
+        // 已不存在的键同样计入速率
+        Mockito.doReturn(0L).when(redisTemplate).unlink(ArgumentMatchers.<Collection<String>>any());
+        long start = System.nanoTime();
+        CompletableFuture<Long> future = PatternDeleter.delete(redisTemplate, keys(30), 10, 100, null);
+        Assertions.assertEquals(0, future.get(2, TimeUnit.SECONDS));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // 每秒100个，30个键至少300ms
+        Assertions.assertTrue(elapsed >= 290, "elapsed " + elapsed + "ms");
+    }
+
+    @Test
+    public void cancelTest() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        CompletableFuture<?>[] holder = new CompletableFuture<?>[1];
+        CompletableFuture<Long> future = PatternDeleter.delete(redisTemplate, keys(100).onClose(() -> closed.set(true)), 10, 0, deleted -> {
+            while (holder[0] == null) {
+                Thread.yield();
+            }
+            holder[0].cancel(false);
+        });
+        holder[0] = future;
+        Assertions.assertTrue(future.isCancelled() || awaitCancelled(future));
+        // 当前批次完成后停止并关闭键流
+        Mockito.verify(redisTemplate, Mockito.timeout(1000)).unlink(ArgumentMatchers.<Collection<String>>any());
+        Thread.sleep(100);
+        Assertions.assertEquals(1, batches.size());
+        Assertions.assertTrue(closed.get());
+    }
+
+    @Test
+    public void invalidBatchSizeTest() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> PatternDeleter.delete(redisTemplate, keys(1).onClose(() -> closed.set(true)), 0, 0, null));
+        Assertions.assertTrue(closed.get());
+    }
+
+    private static boolean awaitCancelled(CompletableFuture<?> future) throws InterruptedException {
+        for (int i = 0; i < 100 && !future.isCancelled(); i++) {
+            Thread.sleep(10);
+        }
+        return future.isCancelled();
+    }
+
+    private static Stream<String> keys(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "k" + i).collect(Collectors.toList()).stream();
+    }
+}
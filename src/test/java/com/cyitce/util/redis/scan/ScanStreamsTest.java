@@ -0,0 +1,199 @@
+package com.cyitce.util.redis.scan;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisNode;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * @version 1.0
+ */
+public class ScanStreamsTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, Object> redisTemplate = Mockito.mock(RedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ListOperations<String, Object> listOperations = Mockito.mock(ListOperations.class);
+    private final List<Object> list = new ArrayList<>();
+
+    public ScanStreamsTest() {
+        Mockito.when(redisTemplate.opsForList()).thenReturn(listOperations);
+        // 按LRANGE的语义返回 [start, end] 闭区间
+        Mockito.when(listOperations.range(ArgumentMatchers.anyString(), ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong())).thenAnswer(invocation -> {
+            int start = (int) Math.min(invocation.<Long>getArgument(1), list.size());
+            int end = (int) Math.min(invocation.<Long>getArgument(2) + 1, list.size());
+            return new ArrayList<>(list.subList(start, end));
+        });
+    }
+
+    @Test
+    public void emptyTest() {
+        Assertions.assertEquals(0, ScanStreams.listRange(redisTemplate, "l", 5).count());
+        Mockito.verify(listOperations).range("l", 0, 4);
+    }
+
+    @Test
+    public void partialChunkTest() {
+        fill(12);
+        Assertions.assertEquals(list, ScanStreams.listRange(redisTemplate, "l", 5).collect(Collectors.toList()));
+        Mockito.verify(listOperations).range("l", 0, 4);
+        Mockito.verify(listOperations).range("l", 5, 9);
+        Mockito.verify(listOperations).range("l", 10, 14);
+        // 最后一块不足chunkSize时不再请求
+        Mockito.verifyNoMoreInteractions(listOperations);
+    }
+
+    @Test
+    public void exactChunkTest() {
+        fill(10);
+        Assertions.assertEquals(list, ScanStreams.listRange(redisTemplate, "l", 5).collect(Collectors.toList()));
+        // 长度为chunkSize的整数倍时，以一次空结果确认结束
+        Mockito.verify(listOperations).range("l", 10, 14);
+        Mockito.verify(listOperations, Mockito.times(3)).range(ArgumentMatchers.anyString(), ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    public void lazyTest() {
+        fill(100);
+        Assertions.assertEquals(list.subList(0, 3), ScanStreams.listRange(redisTemplate, "l", 5).limit(3).collect(Collectors.toList()));
+        Mockito.verify(listOperations, Mockito.times(1)).range(ArgumentMatchers.anyString(), ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    public void invalidChunkSizeTest() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ScanStreams.listRange(redisTemplate, "l", 0));
+    }
+
+    @Test
+    public void streamCloseTest() {
+        ListCursor<String> cursor = new ListCursor<>(Arrays.asList("a", "b", "c"));
+        try (Stream<String> stream = ScanStreams.stream(cursor)) {
+            Assertions.assertEquals("a", stream.findFirst().orElse(null));
+        }
+        // 提前终止后关闭流时同时关闭游标
+        Assertions.assertTrue(cursor.isClosed());
+    }
+
+    @Test
+    public void clusterKeysTest() {
+        RedisClusterConnection connection = cluster();
+        RedisClusterNode master1 = node(7000, true);
+        RedisClusterNode master2 = node(7001, true);
+        RedisClusterNode replica = node(7002, false);
+        Mockito.when(connection.clusterGetNodes()).thenReturn(Arrays.asList(master1, replica, master2));
+        ListCursor<byte[]> cursor1 = new ListCursor<>(Arrays.asList(bytes("a1"), bytes("a2")));
+        ListCursor<byte[]> cursor2 = new ListCursor<>(Collections.singletonList(bytes("b1")));
+        Mockito.when(connection.scan(ArgumentMatchers.eq(master1), ArgumentMatchers.any(ScanOptions.class))).thenReturn(cursor1);
+        Mockito.when(connection.scan(ArgumentMatchers.eq(master2), ArgumentMatchers.any(ScanOptions.class))).thenReturn(cursor2);
+        try (Stream<String> keys = ScanStreams.clusterKeys(redisTemplate, "*", 10)) {
+            // 各主节点的结果合并，不扫描从节点
+            Assertions.assertEquals(new HashSet<>(Arrays.asList("a1", "a2", "b1")), keys.collect(Collectors.toSet()));
+        }
+        Mockito.verify(connection, Mockito.never()).scan(ArgumentMatchers.eq(replica), ArgumentMatchers.any(ScanOptions.class));
+        Mockito.verify(connection).close();
+        Assertions.assertTrue(cursor1.isClosed());
+        Assertions.assertTrue(cursor2.isClosed());
+    }
+
+    @Test
+    public void clusterErrorTest() {
+        RedisClusterConnection connection = cluster();
+        RedisClusterNode master = node(7000, true);
+        Mockito.when(connection.clusterGetNodes()).thenReturn(Collections.singletonList(master));
+        Mockito.when(connection.scan(ArgumentMatchers.eq(master), ArgumentMatchers.any(ScanOptions.class)))
+                .thenThrow(new IllegalStateException("node down"));
+        try (Stream<String> keys = ScanStreams.clusterKeys(redisTemplate, "*", 10)) {
+            // 节点扫描失败时在消费线程抛出
+            IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, keys::count);
+            Assertions.assertEquals("node down", e.getMessage());
+        }
+        Mockito.verify(connection).close();
+    }
+
+    private RedisClusterConnection cluster() {
+        RedisConnectionFactory factory = Mockito.mock(RedisConnectionFactory.class);
+        RedisClusterConnection connection = Mockito.mock(RedisClusterConnection.class);
+        Mockito.when(redisTemplate.getConnectionFactory()).thenReturn(factory);
+        Mockito.doReturn(RedisSerializer.string()).when(redisTemplate).getKeySerializer();
+        Mockito.when(factory.getClusterConnection()).thenReturn(connection);
+        return connection;
+    }
+
+    private static RedisClusterNode node(int port, boolean master) {
+        return RedisClusterNode.newRedisClusterNode().listeningAt("127.0.0.1", port).withId(String.valueOf(port))
+                .promotedAs(master ? RedisNode.NodeType.MASTER : RedisNode.NodeType.SLAVE).build();
+    }
+
+    private static byte[] bytes(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 基于List的游标，记录是否已关闭
+     */
+    private static final class ListCursor<T> implements Cursor<T> {
+
+        private final Iterator<T> iterator;
+        private volatile boolean closed;
+        private long position;
+
+        private ListCursor(List<T> values) {
+            this.iterator = values.iterator();
+        }
+
+        @Override
+        public long getCursorId() {
+            return 0;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public Cursor<T> open() {
+            return this;
+        }
+
+        @Override
+        public long getPosition() {
+            return position;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            position++;
+            return iterator.next();
+        }
+    }
+
+    private void fill(int size) {
+        list.addAll(IntStream.range(0, size).boxed().collect(Collectors.toList()));
+    }
+}
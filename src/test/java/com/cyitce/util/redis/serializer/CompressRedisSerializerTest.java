@@ -0,0 +1,58 @@
+package com.cyitce.util.redis.serializer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @version 1.0
+ */
+public class CompressRedisSerializerTest {
+
+    @Test
+    public void thresholdTest() {
+        FormatRedisSerializer json = new FormatRedisSerializer(SerializerFormat.JSON);
+        CompressRedisSerializer serializer = new CompressRedisSerializer(json, true, 256, CompressionCodec.DEFLATE_FAST);
+        List<String> large = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            large.add("value-" + i);
+        }
+        byte[] small = serializer.serialize("small");
+        Assertions.assertArrayEquals(json.serialize("small"), small);
+        byte[] compressed = serializer.serialize(large);
+        Assertions.assertEquals(CompressionCodec.DEFLATE_FAST.header(), compressed[0]);
+        Assertions.assertTrue(compressed.length < json.serialize(large).length);
+        Assertions.assertEquals(large, serializer.deserialize(compressed));
+        Assertions.assertEquals("small", serializer.deserialize(small));
+        Assertions.assertEquals(1, serializer.statistics().getCompressed());
+        Assertions.assertTrue(serializer.statistics().getBytesSaved() > 0);
+
+        CompressRedisSerializer disabled = new CompressRedisSerializer(json, false, 256, CompressionCodec.DEFLATE_BEST);
+        Assertions.assertEquals(large, disabled.deserialize(compressed));
+    }
+
+    @Test
+    public void lz4Test() {
+        FormatRedisSerializer json = new FormatRedisSerializer(SerializerFormat.JSON);
+        CompressRedisSerializer lz4 = new CompressRedisSerializer(json, true, 256, CompressionCodec.LZ4);
+        CompressRedisSerializer deflate = new CompressRedisSerializer(json, true, 256, CompressionCodec.DEFLATE_BEST);
+        List<String> large = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            large.add("value-" + i);
+        }
+        byte[] compressed = lz4.serialize(large);
+        Assertions.assertEquals(CompressionCodec.LZ4.header(), compressed[0]);
+        Assertions.assertTrue(compressed.length < json.serialize(large).length);
+        Assertions.assertEquals(large, lz4.deserialize(compressed));
+        // 按数据首字节选择算法，切换配置后旧数据仍可读取
+        Assertions.assertEquals(large, deflate.deserialize(compressed));
+        Assertions.assertEquals(large, lz4.deserialize(deflate.serialize(large)));
+
+        byte[] truncated = new byte[compressed.length - 1];
+        System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+        Assertions.assertThrows(SerializationException.class, () -> lz4.deserialize(truncated));
+    }
+}
@@ -0,0 +1,32 @@
+package com.cyitce.util.redis.serializer;
+
+import com.cyitce.util.redis.pojo.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @version 1.0
+ */
+public class FormatRedisSerializerTest {
+
+    @Test
+    public void roundTripTest() {
+        for (SerializerFormat format : SerializerFormat.values()) {
+            FormatRedisSerializer serializer = new FormatRedisSerializer(format);
+            Object value = serializer.deserialize(serializer.serialize(new User("jhy", "n")));
+            Assertions.assertTrue(value instanceof User, format.name());
+            Assertions.assertEquals("jhy", ((User) value).getName());
+            Assertions.assertNull(serializer.deserialize(serializer.serialize(null)));
+        }
+    }
+
+    @Test
+    public void mixedFormatTest() {
+        FormatRedisSerializer json = new FormatRedisSerializer(SerializerFormat.JSON);
+        FormatRedisSerializer smile = new FormatRedisSerializer(SerializerFormat.SMILE);
+        FormatRedisSerializer kryo = new FormatRedisSerializer(SerializerFormat.KRYO);
+        Assertions.assertEquals("jhy", ((User) kryo.deserialize(json.serialize(new User("jhy", "n")))).getName());
+        Assertions.assertEquals("jhy", ((User) json.deserialize(smile.serialize(new User("jhy", "n")))).getName());
+        Assertions.assertEquals("jhy", ((User) smile.deserialize(kryo.serialize(new User("jhy", "n")))).getName());
+    }
+}